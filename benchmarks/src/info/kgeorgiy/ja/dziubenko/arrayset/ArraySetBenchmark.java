@@ -0,0 +1,136 @@
+package info.kgeorgiy.ja.dziubenko.arrayset;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Random;
+import java.util.SortedSet;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Operations of {@link ArraySet} against {@link TreeSet} and {@link ConcurrentSkipListSet}
+ * of random distinct integers, in natural order and with a comparator.
+ * <p>
+ * Queries hit the set in half of the cases and are cycled through in a fixed pseudo-random order,
+ * so every implementation gets the same sequence of queries.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ArraySetBenchmark {
+    private static final long SEED = 0x5EED;
+    private static final int QUERIES = 1 << 16;
+    private static final Comparator<Integer> REVERSED = (a, b) -> Integer.compare(b, a);
+
+    @Param({"10", "1000", "100000", "10000000"})
+    public int size;
+
+    @Param({"ArraySet", "TreeSet", "ConcurrentSkipListSet"})
+    public String implementation;
+
+    @Param({"natural", "comparator"})
+    public String order;
+
+    private Comparator<Integer> comparator;
+    private List<Integer> elements;
+    private SortedSet<Integer> set;
+    private Integer[] queries;
+    // bounds of nested views: from < fromView < toView < to in the set order, so views are not empty
+    private Integer[][] bounds;
+    private int query;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final SplittableRandom random = new SplittableRandom(SEED);
+        comparator = order.equals("natural") ? null : REVERSED;
+        // even numbers are elements, odd numbers are misses
+        elements = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            elements.add(2 * i);
+        }
+        Collections.shuffle(elements, new Random(SEED));
+        set = create(elements);
+
+        queries = new Integer[QUERIES];
+        bounds = new Integer[QUERIES][];
+        final List<Integer> sorted = new ArrayList<>(set);
+        for (int i = 0; i < QUERIES; i++) {
+            queries[i] = random.nextInt(2 * size);
+            final int[] indices = random.ints(0, size).distinct().limit(4).sorted().toArray();
+            bounds[i] = new Integer[]{
+                    sorted.get(indices[0]), sorted.get(indices[1]), sorted.get(indices[2]), sorted.get(indices[3])
+            };
+        }
+    }
+
+    private SortedSet<Integer> create(final List<Integer> elements) {
+        return switch (implementation) {
+            case "ArraySet" -> new ArraySet<>(elements, comparator);
+            case "TreeSet" -> {
+                final NavigableSet<Integer> tree = new TreeSet<>(comparator);
+                tree.addAll(elements);
+                yield tree;
+            }
+            case "ConcurrentSkipListSet" -> {
+                final NavigableSet<Integer> skipList = new ConcurrentSkipListSet<>(comparator);
+                skipList.addAll(elements);
+                yield skipList;
+            }
+            default -> throw new IllegalArgumentException("Unknown implementation " + implementation);
+        };
+    }
+
+    private int next() {
+        return query = (query + 1) & (QUERIES - 1);
+    }
+
+    @Benchmark
+    public SortedSet<Integer> construct() {
+        return create(elements);
+    }
+
+    @Benchmark
+    public boolean contains() {
+        return set.contains(queries[next()]);
+    }
+
+    @Benchmark
+    public Integer subSetChain() {
+        final Integer[] b = bounds[next()];
+        return set.tailSet(b[0]).headSet(b[3]).subSet(b[1], b[2]).first();
+    }
+
+    @Benchmark
+    public void iterate(final Blackhole blackhole) {
+        for (Integer e : set) {
+            blackhole.consume(e);
+        }
+    }
+
+    @Benchmark
+    public int firstLast() {
+        return set.first() + set.last();
+    }
+}
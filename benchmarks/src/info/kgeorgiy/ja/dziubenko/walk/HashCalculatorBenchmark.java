@@ -0,0 +1,151 @@
+package info.kgeorgiy.ja.dziubenko.walk;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time of hashing a single file by {@link HashCalculator}
+ * for every combination of file size, read engine and algorithm.
+ * Engines reading to the heap buffer are measured by {@link #heapBuffer} for every buffer size,
+ * and the other ones by {@link #engine} with the buffer size of {@link Walk}.
+ * <p>
+ * Fixture files of pseudo-random contents are generated once into the directory
+ * given by {@code walk.benchmark.dir} system property (a temporary one by default)
+ * and reused by later runs. Files are read through the page cache, so the numbers
+ * are for warm reads. Sizes above the defaults are given on the command line,
+ * for example {@code -p fileSize=4G}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HashCalculatorBenchmark {
+    private static final long SEED = 0x5EED;
+    private static final int WRITE_CHUNK_SIZE = 1 << 20;
+
+    @State(Scope.Thread)
+    public static class HeapBufferEngine {
+        @Param({"1K", "64K", "1M", "64M", "1G"})
+        public String fileSize;
+
+        @Param({"STREAM", "HEAP"})
+        public String engine;
+
+        @Param({"1024", "8192", "65536"})
+        public int bufferSize;
+
+        @Param({"SHA-256", "MD5", "CRC32C"})
+        public String algorithm;
+
+        private Path file;
+        private HashCalculator calculator;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException, NoSuchAlgorithmException {
+            file = fixture(parseSize(fileSize));
+            calculator = calculator(engine, bufferSize, algorithm);
+        }
+    }
+
+    // CHANNEL engine uses the heap buffer for small files only, so it is measured as Walk runs it
+    @State(Scope.Thread)
+    public static class OtherEngine {
+        @Param({"1K", "64K", "1M", "64M", "1G"})
+        public String fileSize;
+
+        @Param({"DIRECT", "MAPPED", "ASYNC", "CHANNEL"})
+        public String engine;
+
+        @Param({"SHA-256", "MD5", "CRC32C"})
+        public String algorithm;
+
+        private Path file;
+        private HashCalculator calculator;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException, NoSuchAlgorithmException {
+            file = fixture(parseSize(fileSize));
+            calculator = calculator(engine, Walk.BUFFER_SIZE, algorithm);
+        }
+    }
+
+    @Benchmark
+    public byte[] heapBuffer(final HeapBufferEngine state) throws IOException {
+        return state.calculator.calculateDigest(state.file);
+    }
+
+    @Benchmark
+    public byte[] engine(final OtherEngine state) throws IOException {
+        return state.calculator.calculateDigest(state.file);
+    }
+
+    private static HashCalculator calculator(
+            final String engine,
+            final int bufferSize,
+            final String algorithm
+    ) throws NoSuchAlgorithmException {
+        return new HashCalculator(
+                List.of(HashFunction.of(algorithm)),
+                bufferSize,
+                null,
+                HashCalculator.Engine.valueOf(engine)
+        );
+    }
+
+    private static Path fixture(final long size) throws IOException {
+        final String dir = System.getProperty("walk.benchmark.dir");
+        final Path directory = dir == null
+                ? Path.of(System.getProperty("java.io.tmpdir"), "walk-benchmark")
+                : Path.of(dir);
+        Files.createDirectories(directory);
+        final Path file = directory.resolve("fixture-" + size);
+        if (Files.exists(file) && Files.size(file) == size) {
+            return file;
+        }
+
+        // contents depend on the seed only, so fixtures of different runs are equal
+        final SplittableRandom random = new SplittableRandom(SEED);
+        final byte[] chunk = new byte[WRITE_CHUNK_SIZE];
+        final Path temp = Files.createTempFile(directory, "fixture-", ".tmp");
+        try (OutputStream out = Files.newOutputStream(temp)) {
+            for (long written = 0; written < size; written += chunk.length) {
+                random.nextBytes(chunk);
+                out.write(chunk, 0, (int) Math.min(chunk.length, size - written));
+            }
+        }
+        return Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static long parseSize(final String size) {
+        final String value = size.toUpperCase(Locale.ROOT);
+        final int shift = switch (value.charAt(value.length() - 1)) {
+            case 'K' -> 10;
+            case 'M' -> 20;
+            case 'G' -> 30;
+            default -> 0;
+        };
+        return Long.parseLong(shift == 0 ? value : value.substring(0, value.length() - 1)) << shift;
+    }
+}
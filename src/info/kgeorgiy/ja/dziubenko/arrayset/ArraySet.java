@@ -1,9 +1,13 @@
 package info.kgeorgiy.ja.dziubenko.arrayset;
 
 import java.util.*;
+import java.util.function.Consumer;
 
 @SuppressWarnings("unused")
-public class ArraySet<E> extends AbstractSet<E> implements SortedSet<E> {
+public class ArraySet<E> extends AbstractSet<E> implements NavigableSet<E> {
+
+    // input starting from this size is sorted by Arrays.parallelSort
+    private static final int PARALLEL_SORT_THRESHOLD = 1 << 16;
 
     private final List<E> elementData;
     private final Comparator<? super E> comparator;
@@ -18,9 +22,7 @@ public class ArraySet<E> extends AbstractSet<E> implements SortedSet<E> {
     }
 
     public ArraySet(final Collection<? extends E> collection, final Comparator<? super E> comparator) {
-        SortedSet<E> set = new TreeSet<>(comparator);
-        set.addAll(collection);
-        elementData = asList(set);
+        elementData = sortedDistinct(collection, comparator);
         this.comparator = comparator;
     }
 
@@ -38,15 +40,70 @@ public class ArraySet<E> extends AbstractSet<E> implements SortedSet<E> {
         this.comparator = comparator;
     }
 
+    // wraps list, which is already sorted by the comparator and has no equal elements
+    static <E> ArraySet<E> ofSorted(final List<E> sorted, final Comparator<? super E> comparator) {
+        return new ArraySet<>(sorted, comparator);
+    }
+
+    // sorts elements in a single array, keeping the first of equal elements, as TreeSet does
+    @SuppressWarnings("unchecked")
+    private static <E> List<E> sortedDistinct(final Collection<? extends E> collection, final Comparator<? super E> comparator) {
+        final Comparator<? super E> order = comparator == null ? (Comparator<? super E>) Comparator.naturalOrder() : comparator;
+        E[] elements = (E[]) collection.toArray();
+        if (elements.length == 1) {
+            // the same null and type check as TreeSet makes
+            order.compare(elements[0], elements[0]);
+        }
+        if (!isSortedDistinct(elements, order)) {
+            if (elements.length >= PARALLEL_SORT_THRESHOLD) {
+                Arrays.parallelSort(elements, order);
+            } else {
+                Arrays.sort(elements, order);
+            }
+            final int size = distinct(elements, order);
+            if (size < elements.length) {
+                elements = Arrays.copyOf(elements, size);
+            }
+        }
+        return Arrays.asList(elements);
+    }
+
+    private static <E> boolean isSortedDistinct(final E[] elements, final Comparator<? super E> order) {
+        for (int i = 1; i < elements.length; i++) {
+            if (order.compare(elements[i - 1], elements[i]) >= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // moves distinct elements of the sorted array to its head, returns their number
+    private static <E> int distinct(final E[] sorted, final Comparator<? super E> order) {
+        int size = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || order.compare(sorted[size - 1], sorted[i]) != 0) {
+                sorted[size++] = sorted[i];
+            }
+        }
+        return size;
+    }
+
     @Override
     public Comparator<? super E> comparator() {
         return comparator;
     }
 
     @Override
-    public ArraySet<E> subSet(E fromElement, E toElement) {
+    public ArraySet<E> subSet(E fromElement, boolean fromInclusive, E toElement, boolean toInclusive) {
         subSetBoundsCheck(fromElement, toElement, comparator);
-        return subSetOfRange(getInsertionPoint(fromElement), getInsertionPoint(toElement));
+        final int fromIndex = lowerBound(fromElement, fromInclusive);
+        // (e, e) with both bounds exclusive is empty
+        return subSetOfRange(fromIndex, Math.max(fromIndex, lowerBound(toElement, !toInclusive)));
+    }
+
+    @Override
+    public ArraySet<E> subSet(E fromElement, E toElement) {
+        return subSet(fromElement, true, toElement, false);
     }
 
     @SuppressWarnings("unchecked")
@@ -59,25 +116,117 @@ public class ArraySet<E> extends AbstractSet<E> implements SortedSet<E> {
         }
     }
 
+    @Override
+    public ArraySet<E> headSet(E toElement, boolean inclusive) {
+        return subSetOfRange(0, lowerBound(toElement, !inclusive));
+    }
+
     @Override
     public ArraySet<E> headSet(E toElement) {
-        return subSetOfRange(0, getInsertionPoint(toElement));
+        return headSet(toElement, false);
+    }
+
+    @Override
+    public ArraySet<E> tailSet(E fromElement, boolean inclusive) {
+        return subSetOfRange(lowerBound(fromElement, inclusive), size());
     }
 
     @Override
     public ArraySet<E> tailSet(E fromElement) {
-        return subSetOfRange(getInsertionPoint(fromElement), size());
+        return tailSet(fromElement, true);
     }
 
-    private int getInsertionPoint(final E e) {
+    // index of the first element, which is greater than (or equal to, if inclusive) e
+    private int lowerBound(final E e, final boolean inclusive) {
         int index = indexOf(e);
-        return index < 0 ? -index - 1 : index;
+        return index < 0 ? -index - 1 : inclusive ? index : index + 1;
+    }
+
+    /**
+     * Returns element with the given index in the order of this set.
+     *
+     * @throws IndexOutOfBoundsException if there is no such element.
+     */
+    public E get(final int index) {
+        return elementData.get(index);
+    }
+
+    /**
+     * Returns number of elements less than e, which is the index of e if this set contains it.
+     */
+    public int rank(final E e) {
+        return lowerBound(e, true);
+    }
+
+    /**
+     * Returns number of elements between the bounds, which is the size of the
+     * corresponding {@link #subSet(Object, boolean, Object, boolean) subSet}, without creating it.
+     */
+    public int count(E fromElement, boolean fromInclusive, E toElement, boolean toInclusive) {
+        subSetBoundsCheck(fromElement, toElement, comparator);
+        return Math.max(0, lowerBound(toElement, !toInclusive) - lowerBound(fromElement, fromInclusive));
+    }
+
+    /**
+     * Returns number of elements from {@code fromElement} inclusive to {@code toElement} exclusive.
+     */
+    public int count(E fromElement, E toElement) {
+        return count(fromElement, true, toElement, false);
     }
 
     private ArraySet<E> subSetOfRange(final int fromIndex, final int toIndex) {
         return new ArraySet<>(elementData.subList(fromIndex, toIndex), comparator);
     }
 
+    @Override
+    public E lower(E e) {
+        return elementOrNull(lowerBound(e, true) - 1);
+    }
+
+    @Override
+    public E floor(E e) {
+        return elementOrNull(lowerBound(e, false) - 1);
+    }
+
+    @Override
+    public E ceiling(E e) {
+        return elementOrNull(lowerBound(e, true));
+    }
+
+    @Override
+    public E higher(E e) {
+        return elementOrNull(lowerBound(e, false));
+    }
+
+    private E elementOrNull(final int index) {
+        return 0 <= index && index < size() ? elementData.get(index) : null;
+    }
+
+    @Override
+    public E pollFirst() {
+        throw new UnsupportedOperationException("ArraySet is immutable");
+    }
+
+    @Override
+    public E pollLast() {
+        throw new UnsupportedOperationException("ArraySet is immutable");
+    }
+
+    @Override
+    public ArraySet<E> descendingSet() {
+        return new ArraySet<>(ReversedList.reverse(elementData), reverseOrder(comparator));
+    }
+
+    // reverse of the reverse natural order is natural order again
+    private static <E> Comparator<? super E> reverseOrder(final Comparator<? super E> comparator) {
+        return comparator == Collections.reverseOrder() ? null : Collections.reverseOrder(comparator);
+    }
+
+    @Override
+    public Iterator<E> descendingIterator() {
+        return descendingSet().iterator();
+    }
+
     @Override
     public E first() {
         return elementData(0);
@@ -110,11 +259,149 @@ public class ArraySet<E> extends AbstractSet<E> implements SortedSet<E> {
         return indexOf((E) o) >= 0;
     }
 
+    @Override
+    public boolean containsAll(Collection<?> c) {
+        if (!(c instanceof SortedSet<?> sorted) || !Objects.equals(sorted.comparator(), comparator)) {
+            return super.containsAll(c);
+        }
+        // elements of c are looked up in order, so every search starts from the previous match
+        int index = 0;
+        for (Object o : c) {
+            @SuppressWarnings("unchecked") final E e = (E) o;
+            index = gallop(elementData, index, e);
+            if (index == size() || compare(elementData.get(index), e) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns set of elements contained in this set or in the other one.
+     * Sets with equal comparators are merged in linear time.
+     */
+    public ArraySet<E> union(final ArraySet<E> other) {
+        if (!Objects.equals(comparator, other.comparator)) {
+            final Collection<E> elements = new ArrayList<>(elementData);
+            elements.addAll(other.elementData);
+            return new ArraySet<>(elements, comparator);
+        }
+        return merge(other, true, true, true);
+    }
+
+    /**
+     * Returns set of elements of this set contained in the other one.
+     * For sets with equal comparators it takes {@code O(m log(n / m))} comparisons,
+     * where {@code m} is the size of the smaller set.
+     */
+    public ArraySet<E> intersection(final ArraySet<E> other) {
+        return Objects.equals(comparator, other.comparator) ? merge(other, false, true, false) : filter(other, true);
+    }
+
+    /**
+     * Returns set of elements of this set not contained in the other one.
+     */
+    public ArraySet<E> difference(final ArraySet<E> other) {
+        return Objects.equals(comparator, other.comparator) ? merge(other, true, false, false) : filter(other, false);
+    }
+
+    /**
+     * Returns set of elements contained in exactly one of the sets.
+     */
+    public ArraySet<E> symmetricDifference(final ArraySet<E> other) {
+        return Objects.equals(comparator, other.comparator)
+                ? merge(other, true, false, true)
+                : difference(other).union(other.difference(this));
+    }
+
+    private ArraySet<E> filter(final ArraySet<E> other, final boolean contained) {
+        final List<E> elements = new ArrayList<>();
+        for (E e : elementData) {
+            if (other.contains(e) == contained) {
+                elements.add(e);
+            }
+        }
+        return new ArraySet<>(elements, comparator);
+    }
+
+    /*
+     * Merges two sorted lists, galloping over runs of elements of one list, which are less
+     * than the current element of the other, so runs of skipped elements cost logarithmic time.
+     * Common elements are taken from this set.
+     */
+    private ArraySet<E> merge(final ArraySet<E> other, final boolean onlyThis, final boolean both, final boolean onlyOther) {
+        final List<E> a = elementData;
+        final List<E> b = other.elementData;
+        final List<E> result = new ArrayList<>();
+        int i = 0;
+        int j = 0;
+        while (i < a.size() && j < b.size()) {
+            final int c = compare(a.get(i), b.get(j));
+            if (c < 0) {
+                final int next = gallop(a, i, b.get(j));
+                if (onlyThis) {
+                    result.addAll(a.subList(i, next));
+                }
+                i = next;
+            } else if (c > 0) {
+                final int next = gallop(b, j, a.get(i));
+                if (onlyOther) {
+                    result.addAll(b.subList(j, next));
+                }
+                j = next;
+            } else {
+                if (both) {
+                    result.add(a.get(i));
+                }
+                i++;
+                j++;
+            }
+        }
+        if (onlyThis) {
+            result.addAll(a.subList(i, a.size()));
+        }
+        if (onlyOther) {
+            result.addAll(b.subList(j, b.size()));
+        }
+        return new ArraySet<>(result, comparator);
+    }
+
+    // index of the first element of list starting from, which is not less than e:
+    // probes at exponentially growing distances, then binary search between the last two probes
+    private int gallop(final List<E> list, final int from, final E e) {
+        int low = from;
+        int high = from;
+        for (int step = 1; high < list.size() && compare(list.get(high), e) < 0; step <<= 1) {
+            low = high + 1;
+            high = low + Math.min(step, list.size() - low);
+        }
+        high = Math.min(high, list.size());
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (compare(list.get(mid), e) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    @SuppressWarnings("unchecked")
+    private int compare(final E a, final E b) {
+        return comparator == null ? ((Comparable<? super E>) a).compareTo(b) : comparator.compare(a, b);
+    }
+
     @Override
     public Iterator<E> iterator() {
         return Collections.unmodifiableList(elementData).iterator();
     }
 
+    @Override
+    public Spliterator<E> spliterator() {
+        return new IndexSpliterator(0, size());
+    }
+
     @Override
     public String toString() {
         return "ArraySet{" +
@@ -122,4 +409,52 @@ public class ArraySet<E> extends AbstractSet<E> implements SortedSet<E> {
             ", elementData=" + elementData +
             '}';
     }
+
+    // splits the range of indices in halves, so parallel streams get balanced parts
+    private class IndexSpliterator implements Spliterator<E> {
+        private int index;
+        private final int end;
+
+        private IndexSpliterator(final int index, final int end) {
+            this.index = index;
+            this.end = end;
+        }
+
+        @Override
+        public boolean tryAdvance(final Consumer<? super E> action) {
+            if (index < end) {
+                action.accept(elementData.get(index++));
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(final Consumer<? super E> action) {
+            for (; index < end; index++) {
+                action.accept(elementData.get(index));
+            }
+        }
+
+        @Override
+        public Spliterator<E> trySplit() {
+            final int mid = (index + end) >>> 1;
+            return mid <= index ? null : new IndexSpliterator(index, index = mid);
+        }
+
+        @Override
+        public long estimateSize() {
+            return end - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return SIZED | SUBSIZED | SORTED | DISTINCT | ORDERED | IMMUTABLE;
+        }
+
+        @Override
+        public Comparator<? super E> getComparator() {
+            return comparator;
+        }
+    }
 }
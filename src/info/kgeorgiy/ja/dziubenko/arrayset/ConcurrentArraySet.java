@@ -0,0 +1,339 @@
+package info.kgeorgiy.ja.dziubenko.arrayset;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Thread-safe sorted set for read-mostly workloads, built on immutable {@link ArraySet} snapshots.
+ * <p>
+ * The state of the set is a snapshot together with sorted arrays of pending inserts
+ * and deletes, published through a volatile reference. A write, under a lock, republishes
+ * the pending arrays, and once there are more than square root of the snapshot size of them,
+ * merges them into a new snapshot in one linear pass. Reads never lock or merge:
+ * {@link #contains} is at most three binary searches, and iteration merges
+ * the snapshot with pending writes on the fly.
+ * <p>
+ * Iterators, {@link #subSet views}, {@link #first} and {@link #last} reflect
+ * the state at the time of the call and don't support modification.
+ */
+@SuppressWarnings("unused")
+public class ConcurrentArraySet<E> extends AbstractSet<E> implements SortedSet<E> {
+    private static final int MIN_PENDING = 1 << 4;
+
+    private final Comparator<? super E> comparator;
+    // element -> true for insert, false for delete; guarded by itself
+    private final NavigableMap<E, Boolean> pending;
+    private volatile Overlay<E> state;
+
+    public ConcurrentArraySet(final Collection<? extends E> collection, final Comparator<? super E> comparator) {
+        this.comparator = comparator;
+        this.pending = new TreeMap<>(comparator);
+        this.state = new Overlay<>(new ArraySet<>(collection, comparator));
+    }
+
+    public ConcurrentArraySet(final Comparator<? super E> comparator) {
+        this(Collections.emptyList(), comparator);
+    }
+
+    public ConcurrentArraySet() {
+        this(null);
+    }
+
+    /**
+     * Returns immutable set of all elements, including the ones written so far.
+     * Pending writes are merged into a copy without locking.
+     */
+    public ArraySet<E> snapshot() {
+        return state.merged();
+    }
+
+    @Override
+    public boolean add(final E e) {
+        return write(e, true);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean remove(final Object o) {
+        return write((E) o, false);
+    }
+
+    private boolean write(final E e, final boolean insert) {
+        synchronized (pending) {
+            final boolean modified = stage(e, insert);
+            if (modified) {
+                publish();
+            }
+            return modified;
+        }
+    }
+
+    /*
+     * Records the write in pending, keeping inserts absent from the base snapshot
+     * and deletes present in it; called under the lock.
+     */
+    private boolean stage(final E e, final boolean insert) {
+        final boolean inBase = state.base.contains(e);
+        final Boolean pendingInsert = pending.get(e);
+        final boolean present = pendingInsert != null ? pendingInsert : inBase;
+        if (present == insert) {
+            return false;
+        }
+        if (inBase == insert) {
+            pending.remove(e);
+        } else {
+            pending.put(e, insert);
+        }
+        return true;
+    }
+
+    // publishes pending writes, merging them into a new snapshot if there are many; called under the lock
+    private void publish() {
+        final ArraySet<E> base = state.base;
+        if (pending.size() > Math.max(MIN_PENDING, (int) Math.sqrt(base.size()))) {
+            state = new Overlay<>(new Overlay<>(base, pendingOf(true), pendingOf(false)).merged());
+            pending.clear();
+        } else {
+            state = new Overlay<>(base, pendingOf(true), pendingOf(false));
+        }
+    }
+
+    private ArraySet<E> pendingOf(final boolean insert) {
+        final List<E> elements = new ArrayList<>();
+        for (Map.Entry<E, Boolean> write : pending.entrySet()) {
+            if (write.getValue() == insert) {
+                elements.add(write.getKey());
+            }
+        }
+        return ArraySet.ofSorted(elements, comparator);
+    }
+
+    @Override
+    public boolean addAll(final Collection<? extends E> c) {
+        synchronized (pending) {
+            boolean modified = false;
+            for (E e : c) {
+                modified |= stage(e, true);
+            }
+            if (modified) {
+                publish();
+            }
+            return modified;
+        }
+    }
+
+    @Override
+    public boolean removeAll(final Collection<?> c) {
+        return removeIf(c::contains);
+    }
+
+    @Override
+    public boolean retainAll(final Collection<?> c) {
+        return removeIf(e -> !c.contains(e));
+    }
+
+    @Override
+    public boolean removeIf(final Predicate<? super E> filter) {
+        synchronized (pending) {
+            boolean modified = false;
+            for (E e : state) {
+                if (filter.test(e)) {
+                    modified |= stage(e, false);
+                }
+            }
+            if (modified) {
+                publish();
+            }
+            return modified;
+        }
+    }
+
+    @Override
+    public void clear() {
+        synchronized (pending) {
+            pending.clear();
+            state = new Overlay<>(new ArraySet<>(Collections.emptyList(), comparator));
+        }
+    }
+
+    @Override
+    public Comparator<? super E> comparator() {
+        return comparator;
+    }
+
+    @Override
+    public boolean contains(final Object o) {
+        return state.contains(o);
+    }
+
+    @Override
+    public int size() {
+        return state.size();
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return state.iterator();
+    }
+
+    @Override
+    public Spliterator<E> spliterator() {
+        return state.spliterator();
+    }
+
+    @Override
+    public SortedSet<E> subSet(final E fromElement, final E toElement) {
+        return state.subSet(fromElement, toElement);
+    }
+
+    @Override
+    public SortedSet<E> headSet(final E toElement) {
+        return state.headSet(toElement);
+    }
+
+    @Override
+    public SortedSet<E> tailSet(final E fromElement) {
+        return state.tailSet(fromElement);
+    }
+
+    @Override
+    public E first() {
+        return state.first();
+    }
+
+    @Override
+    public E last() {
+        return state.last();
+    }
+
+    @Override
+    public String toString() {
+        return "ConcurrentArraySet{" +
+            "snapshot=" + state +
+            '}';
+    }
+
+    /*
+     * Immutable set of elements of base and inserts, except deletes.
+     * Inserts are absent from base, and deletes are present in it.
+     */
+    private static final class Overlay<E> extends AbstractSet<E> implements SortedSet<E> {
+        private final ArraySet<E> base;
+        private final ArraySet<E> inserts;
+        private final ArraySet<E> deletes;
+
+        private Overlay(final ArraySet<E> base, final ArraySet<E> inserts, final ArraySet<E> deletes) {
+            this.base = base;
+            this.inserts = inserts;
+            this.deletes = deletes;
+        }
+
+        private Overlay(final ArraySet<E> base) {
+            this(base, ArraySet.ofSorted(List.of(), base.comparator()), ArraySet.ofSorted(List.of(), base.comparator()));
+        }
+
+        private ArraySet<E> merged() {
+            if (inserts.isEmpty() && deletes.isEmpty()) {
+                return base;
+            }
+            return base.difference(deletes).union(inserts);
+        }
+
+        @Override
+        public Comparator<? super E> comparator() {
+            return base.comparator();
+        }
+
+        @Override
+        public boolean contains(final Object o) {
+            return inserts.contains(o) || base.contains(o) && !deletes.contains(o);
+        }
+
+        @Override
+        public int size() {
+            return base.size() + inserts.size() - deletes.size();
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            return new Iterator<>() {
+                private int baseIndex;
+                private int insertIndex;
+                private int deleteIndex;
+
+                // skips deleted elements of base
+                private boolean hasBase() {
+                    while (baseIndex < base.size() && deleteIndex < deletes.size()
+                            && compare(base.get(baseIndex), deletes.get(deleteIndex)) == 0) {
+                        baseIndex++;
+                        deleteIndex++;
+                    }
+                    return baseIndex < base.size();
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return hasBase() || insertIndex < inserts.size();
+                }
+
+                @Override
+                public E next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    if (!hasBase() || insertIndex < inserts.size()
+                            && compare(inserts.get(insertIndex), base.get(baseIndex)) < 0) {
+                        return inserts.get(insertIndex++);
+                    }
+                    return base.get(baseIndex++);
+                }
+            };
+        }
+
+        @Override
+        public Overlay<E> subSet(final E fromElement, final E toElement) {
+            return new Overlay<>(base.subSet(fromElement, toElement), inserts.subSet(fromElement, toElement), deletes.subSet(fromElement, toElement));
+        }
+
+        @Override
+        public Overlay<E> headSet(final E toElement) {
+            return new Overlay<>(base.headSet(toElement), inserts.headSet(toElement), deletes.headSet(toElement));
+        }
+
+        @Override
+        public Overlay<E> tailSet(final E fromElement) {
+            return new Overlay<>(base.tailSet(fromElement), inserts.tailSet(fromElement), deletes.tailSet(fromElement));
+        }
+
+        @Override
+        public E first() {
+            return iterator().next();
+        }
+
+        // the last element of base, which is not deleted, or of inserts
+        @Override
+        public E last() {
+            int baseIndex = base.size() - 1;
+            int deleteIndex = deletes.size() - 1;
+            while (baseIndex >= 0 && deleteIndex >= 0 && compare(base.get(baseIndex), deletes.get(deleteIndex)) == 0) {
+                baseIndex--;
+                deleteIndex--;
+            }
+            if (baseIndex < 0) {
+                return inserts.last();
+            }
+            return inserts.isEmpty() || compare(inserts.last(), base.get(baseIndex)) < 0 ? base.get(baseIndex) : inserts.last();
+        }
+
+        @SuppressWarnings("unchecked")
+        private int compare(final E a, final E b) {
+            final Comparator<? super E> comparator = base.comparator();
+            return comparator == null ? ((Comparable<? super E>) a).compareTo(b) : comparator.compare(a, b);
+        }
+
+        @Override
+        public String toString() {
+            return merged().toString();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package info.kgeorgiy.ja.dziubenko.arrayset;
+
+/**
+ * Eytzinger (BFS) layout of sorted primitive arrays: the children of node {@code k}
+ * are {@code 2k} and {@code 2k + 1}, node {@code 0} is unused.
+ * <p>
+ * Every search descends through the same top nodes, which stay cached, and the descendants
+ * of a node lie close to each other, so a search touches fewer cold cache lines than a binary
+ * search of the sorted array. The search is written with a branch rather than a conditional move:
+ * while a load is pending, the processor follows the predicted branch and starts loading
+ * the next levels, which Java can't request with explicit prefetches.
+ */
+final class Eytzinger {
+    private Eytzinger() {
+    }
+
+    static int[] layout(final int[] sorted, final int fromIndex, final int toIndex) {
+        final int[] tree = new int[toIndex - fromIndex + 1];
+        fill(sorted, fromIndex, tree, 1);
+        return tree;
+    }
+
+    static long[] layout(final long[] sorted, final int fromIndex, final int toIndex) {
+        final long[] tree = new long[toIndex - fromIndex + 1];
+        fill(sorted, fromIndex, tree, 1);
+        return tree;
+    }
+
+    // in-order traversal of the implicit tree visits elements in sorted order
+    private static int fill(final int[] sorted, int index, final int[] tree, final int node) {
+        if (node < tree.length) {
+            index = fill(sorted, index, tree, 2 * node);
+            tree[node] = sorted[index++];
+            index = fill(sorted, index, tree, 2 * node + 1);
+        }
+        return index;
+    }
+
+    private static int fill(final long[] sorted, int index, final long[] tree, final int node) {
+        if (node < tree.length) {
+            index = fill(sorted, index, tree, 2 * node);
+            tree[node] = sorted[index++];
+            index = fill(sorted, index, tree, 2 * node + 1);
+        }
+        return index;
+    }
+
+    static boolean contains(final int[] tree, final int e) {
+        int node = 1;
+        while (node < tree.length) {
+            if (tree[node] < e) {
+                node = 2 * node + 1;
+            } else {
+                node = 2 * node;
+            }
+        }
+        final int bound = lowerBound(node);
+        return bound != 0 && tree[bound] == e;
+    }
+
+    static boolean contains(final long[] tree, final long e) {
+        int node = 1;
+        while (node < tree.length) {
+            if (tree[node] < e) {
+                node = 2 * node + 1;
+            } else {
+                node = 2 * node;
+            }
+        }
+        final int bound = lowerBound(node);
+        return bound != 0 && tree[bound] == e;
+    }
+
+    // the lower bound is the last node, where the search went left; 0 if there is none
+    private static int lowerBound(final int node) {
+        return node >> Integer.numberOfTrailingZeros(~node) + 1;
+    }
+}
@@ -0,0 +1,393 @@
+package info.kgeorgiy.ja.dziubenko.arrayset;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Immutable {@link SortedSet} of strings in natural order, stored front-coded.
+ * <p>
+ * Strings are encoded in UTF-8 and split into blocks of {@value BLOCK_SIZE}.
+ * The first string of a block is stored whole, every other one as the length of the prefix
+ * shared with the previous string and the remaining suffix. A lookup binary searches
+ * the block heads and then scans a single block in place, comparing UTF-8 bytes with the key
+ * in {@link String#compareTo} order without decoding strings.
+ * Views share the data and hold the range of indices.
+ */
+@SuppressWarnings("unused")
+public class FrontCodedStringSet extends AbstractSet<String> implements SortedSet<String> {
+    private static final int BLOCK_SIZE = 16;
+
+    private final byte[] data;
+    // offsets of the blocks in data
+    private final int[] blocks;
+    // number of strings in data
+    private final int count;
+    private final int fromIndex;
+    private final int toIndex;
+
+    public FrontCodedStringSet(final Collection<String> collection) {
+        final String[] sorted = collection.toArray(String[]::new);
+        Arrays.sort(sorted);
+        final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final List<Integer> blockOffsets = new ArrayList<>();
+        byte[] previous = null;
+        int size = 0;
+        for (String s : sorted) {
+            if (size > 0 && s.equals(sorted[size - 1])) {
+                continue;
+            }
+            sorted[size] = s;
+            final byte[] bytes = encode(encoder, s);
+            if (size++ % BLOCK_SIZE == 0) {
+                blockOffsets.add(out.size());
+                writeVarInt(out, bytes.length);
+                out.write(bytes, 0, bytes.length);
+            } else {
+                final int mismatch = Arrays.mismatch(previous, bytes);
+                final int shared = mismatch < 0 ? bytes.length : mismatch;
+                writeVarInt(out, shared);
+                writeVarInt(out, bytes.length - shared);
+                out.write(bytes, shared, bytes.length - shared);
+            }
+            previous = bytes;
+        }
+        this.data = out.toByteArray();
+        this.blocks = blockOffsets.stream().mapToInt(Integer::intValue).toArray();
+        this.count = size;
+        this.fromIndex = 0;
+        this.toIndex = size;
+    }
+
+    public FrontCodedStringSet() {
+        this(Collections.emptyList());
+    }
+
+    //constructor for subSet
+    private FrontCodedStringSet(final FrontCodedStringSet set, final int fromIndex, final int toIndex) {
+        this.data = set.data;
+        this.blocks = set.blocks;
+        this.count = set.count;
+        this.fromIndex = fromIndex;
+        this.toIndex = toIndex;
+    }
+
+    private static byte[] encode(final CharsetEncoder encoder, final String s) {
+        try {
+            final ByteBuffer encoded = encoder.encode(CharBuffer.wrap(s));
+            return Arrays.copyOf(encoded.array(), encoded.limit());
+        } catch (CharacterCodingException e) {
+            throw new IllegalArgumentException("Malformed string: " + s, e);
+        }
+    }
+
+    private static void writeVarInt(final ByteArrayOutputStream out, int value) {
+        while (value >= 0x80) {
+            out.write(value & 0x7F | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    @Override
+    public Comparator<? super String> comparator() {
+        return null;
+    }
+
+    @Override
+    public FrontCodedStringSet subSet(String fromElement, String toElement) {
+        if (fromElement.compareTo(toElement) > 0) {
+            throw new IllegalArgumentException("fromElement > toElement");
+        }
+        return subSetOfRange(getInsertionPoint(fromElement), getInsertionPoint(toElement));
+    }
+
+    @Override
+    public FrontCodedStringSet headSet(String toElement) {
+        return subSetOfRange(fromIndex, getInsertionPoint(toElement));
+    }
+
+    @Override
+    public FrontCodedStringSet tailSet(String fromElement) {
+        return subSetOfRange(getInsertionPoint(fromElement), toIndex);
+    }
+
+    // absolute insertion point, limited to this view
+    private int getInsertionPoint(final String e) {
+        int index = indexOf(e);
+        return Math.max(fromIndex, Math.min(toIndex, index < 0 ? -index - 1 : index));
+    }
+
+    private FrontCodedStringSet subSetOfRange(final int fromIndex, final int toIndex) {
+        return new FrontCodedStringSet(this, fromIndex, toIndex);
+    }
+
+    @Override
+    public String first() {
+        return elementData(fromIndex);
+    }
+
+    @Override
+    public String last() {
+        return elementData(toIndex - 1);
+    }
+
+    private String elementData(final int index) {
+        if (size() == 0) {
+            throw new NoSuchElementException();
+        }
+        return new Cursor(index).next();
+    }
+
+    @Override
+    public int size() {
+        return toIndex - fromIndex;
+    }
+
+    // absolute index among all strings of data, or (-(insertion point) - 1)
+    private int indexOf(final String e) {
+        int low = 0;
+        int high = blocks.length - 1;
+        // the last block, which head is not greater than e
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final int offset = blocks[mid];
+            final int length = readVarInt(offset);
+            final int c = compare(data, offset + varIntSize(length), length, e);
+            if (c < 0) {
+                low = mid + 1;
+            } else if (c > 0) {
+                high = mid - 1;
+            } else {
+                return mid * BLOCK_SIZE;
+            }
+        }
+        if (high < 0) {
+            return -1;
+        }
+        return isWellFormed(e) ? indexInBlock(high, e.getBytes(StandardCharsets.UTF_8)) : indexInBlockDecoding(high, e);
+    }
+
+    /*
+     * Scans the block, which head is less than the key, in place. The common prefix of the key
+     * and the previous string is known, so a string is compared only if it shares exactly that prefix:
+     * a longer shared prefix keeps it less than the key, and a shorter one makes it greater.
+     */
+    private int indexInBlock(final int block, final byte[] key) {
+        int offset = blocks[block];
+        final int headLength = readVarInt(offset);
+        offset += varIntSize(headLength);
+        int common = Arrays.mismatch(data, offset, offset + headLength, key, 0, key.length);
+        offset += headLength;
+        final int end = Math.min((block + 1) * BLOCK_SIZE, count);
+        for (int index = block * BLOCK_SIZE + 1; index < end; index++) {
+            final int shared = readVarInt(offset);
+            offset += varIntSize(shared);
+            final int suffix = readVarInt(offset);
+            offset += varIntSize(suffix);
+            if (shared < common) {
+                return -index - 1;
+            }
+            if (shared == common) {
+                final int mismatch = Arrays.mismatch(data, offset, offset + suffix, key, common, key.length);
+                if (mismatch < 0) {
+                    return index;
+                }
+                common += mismatch;
+                if (mismatch < suffix && (common == key.length || compareBytes(data[offset + mismatch], key[common]) > 0)) {
+                    return -index - 1;
+                }
+            }
+            offset += suffix;
+        }
+        return -end - 1;
+    }
+
+    /*
+     * Compares different bytes at the same position of valid UTF-8 strings in String.compareTo order:
+     * surrogate pairs of supplementary characters are less than characters from U+E000 to U+FFFF.
+     */
+    private static int compareBytes(final byte x, final byte y) {
+        final int a = x & 0xFF;
+        final int b = y & 0xFF;
+        if (a >= 0xF0 && (b == 0xEE || b == 0xEF)) {
+            return -1;
+        }
+        if (b >= 0xF0 && (a == 0xEE || a == 0xEF)) {
+            return 1;
+        }
+        return a - b;
+    }
+
+    // whether the string has no unpaired surrogates, so it has a UTF-8 encoding
+    private static boolean isWellFormed(final String s) {
+        for (int i = 0; i < s.length(); i++) {
+            final char c = s.charAt(i);
+            if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // scans the block decoding strings, for keys with unpaired surrogates
+    private int indexInBlockDecoding(final int high, final String e) {
+        final Cursor cursor = new Cursor(high * BLOCK_SIZE);
+        cursor.advance();
+        final int end = Math.min((high + 1) * BLOCK_SIZE, count);
+        while (cursor.index < end) {
+            cursor.advance();
+            final int c = compare(cursor.buffer, 0, cursor.length, e);
+            if (c >= 0) {
+                return c == 0 ? cursor.index - 1 : -cursor.index;
+            }
+        }
+        return -end - 1;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof String e)) {
+            return false;
+        }
+        final int index = indexOf(e);
+        return fromIndex <= index && index < toIndex;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return new Iterator<>() {
+            private final Cursor cursor = new Cursor(fromIndex);
+
+            @Override
+            public boolean hasNext() {
+                return cursor.index < toIndex;
+            }
+
+            @Override
+            public String next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return cursor.next();
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "FrontCodedStringSet{" +
+            "elementData=" + super.toString() +
+            '}';
+    }
+
+    private int readVarInt(int offset) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            final int b = data[offset++];
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    private static int varIntSize(final int value) {
+        return value < 1 << 7 ? 1 : value < 1 << 14 ? 2 : value < 1 << 21 ? 3 : value < 1 << 28 ? 4 : 5;
+    }
+
+    /*
+     * Compares UTF-8 bytes with the string as String.compareTo compares strings:
+     * by UTF-16 code units, so a supplementary character is compared as its surrogate pair.
+     */
+    private static int compare(final byte[] bytes, final int offset, final int length, final String s) {
+        int i = offset;
+        int k = 0;
+        final int end = offset + length;
+        while (i < end && k < s.length()) {
+            final int b = bytes[i];
+            final int c;
+            if (b >= 0) {
+                c = b;
+                i++;
+            } else if ((b & 0xE0) == 0xC0) {
+                c = (b & 0x1F) << 6 | bytes[i + 1] & 0x3F;
+                i += 2;
+            } else if ((b & 0xF0) == 0xE0) {
+                c = (b & 0x0F) << 12 | (bytes[i + 1] & 0x3F) << 6 | bytes[i + 2] & 0x3F;
+                i += 3;
+            } else {
+                final int codePoint = (b & 0x07) << 18 | (bytes[i + 1] & 0x3F) << 12
+                        | (bytes[i + 2] & 0x3F) << 6 | bytes[i + 3] & 0x3F;
+                i += 4;
+                final int high = Character.highSurrogate(codePoint) - s.charAt(k++);
+                if (high != 0) {
+                    return high;
+                }
+                if (k == s.length()) {
+                    return 1;
+                }
+                c = Character.lowSurrogate(codePoint);
+            }
+            final int diff = c - s.charAt(k++);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return (i < end ? 1 : 0) - (k < s.length() ? 1 : 0);
+    }
+
+    // sequential decoder of strings, starting from the given index
+    private class Cursor {
+        // grows to the longest decoded string
+        private byte[] buffer = new byte[0];
+        private int length;
+        private int index;
+        private int offset;
+
+        private Cursor(final int index) {
+            final int block = index / BLOCK_SIZE;
+            if (block < blocks.length) {
+                this.index = block * BLOCK_SIZE;
+                this.offset = blocks[block];
+                while (this.index < index) {
+                    advance();
+                }
+            } else {
+                this.index = index;
+                this.offset = data.length;
+            }
+        }
+
+        private void advance() {
+            final int shared;
+            if (index % BLOCK_SIZE == 0) {
+                shared = 0;
+            } else {
+                shared = readVarInt(offset);
+                offset += varIntSize(shared);
+            }
+            final int suffix = readVarInt(offset);
+            offset += varIntSize(suffix);
+            if (buffer.length < shared + suffix) {
+                buffer = Arrays.copyOf(buffer, Math.max(shared + suffix, buffer.length * 2));
+            }
+            System.arraycopy(data, offset, buffer, shared, suffix);
+            offset += suffix;
+            length = shared + suffix;
+            index++;
+        }
+
+        private String next() {
+            advance();
+            return new String(buffer, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package info.kgeorgiy.ja.dziubenko.arrayset;
+
+import java.util.*;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Immutable {@link SortedSet} of ints in natural order, backed by a sorted {@code int[]}.
+ * Views share the array of the set and hold the range of indices.
+ */
+@SuppressWarnings("unused")
+public class IntArraySet extends AbstractSet<Integer> implements SortedSet<Integer> {
+
+    private final int[] elementData;
+    private final int fromIndex;
+    private final int toIndex;
+    // Eytzinger layout of the set this one is a view of, or null
+    private final int[] lookupTree;
+
+    public IntArraySet(final int... elements) {
+        final int[] sorted = elements.clone();
+        Arrays.sort(sorted);
+        this.elementData = sorted;
+        this.fromIndex = 0;
+        this.toIndex = distinct(sorted);
+        this.lookupTree = null;
+    }
+
+    public IntArraySet(final Collection<Integer> collection) {
+        this(collection.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    public IntArraySet() {
+        this(new int[0]);
+    }
+
+    //constructor for subSet
+    private IntArraySet(final int[] elementData, final int fromIndex, final int toIndex, final int[] lookupTree) {
+        this.elementData = elementData;
+        this.fromIndex = fromIndex;
+        this.toIndex = toIndex;
+        this.lookupTree = lookupTree;
+    }
+
+    /**
+     * Returns set of the same elements, which answers {@link #contains(int)}
+     * with an {@link Eytzinger} copy of the elements. It takes extra {@code size()} ints
+     * and pays off for large sets queried many times. Views of the returned set share the copy.
+     */
+    public IntArraySet indexed() {
+        return lookupTree != null ? this : new IntArraySet(elementData, fromIndex, toIndex, Eytzinger.layout(elementData, fromIndex, toIndex));
+    }
+
+    // moves distinct elements of the sorted array to its head, returns their number
+    private static int distinct(final int[] sorted) {
+        int size = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[size - 1]) {
+                sorted[size++] = sorted[i];
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public Comparator<? super Integer> comparator() {
+        return null;
+    }
+
+    public IntArraySet subSet(final int fromElement, final int toElement) {
+        if (fromElement > toElement) {
+            throw new IllegalArgumentException("fromElement > toElement");
+        }
+        return subSetOfRange(getInsertionPoint(fromElement), getInsertionPoint(toElement));
+    }
+
+    public IntArraySet headSet(final int toElement) {
+        return subSetOfRange(fromIndex, getInsertionPoint(toElement));
+    }
+
+    public IntArraySet tailSet(final int fromElement) {
+        return subSetOfRange(getInsertionPoint(fromElement), toIndex);
+    }
+
+    @Override
+    public IntArraySet subSet(final Integer fromElement, final Integer toElement) {
+        return subSet(fromElement.intValue(), toElement.intValue());
+    }
+
+    @Override
+    public IntArraySet headSet(final Integer toElement) {
+        return headSet(toElement.intValue());
+    }
+
+    @Override
+    public IntArraySet tailSet(final Integer fromElement) {
+        return tailSet(fromElement.intValue());
+    }
+
+    private int getInsertionPoint(final int e) {
+        int index = indexOf(e);
+        return index < 0 ? -index - 1 : index;
+    }
+
+    private IntArraySet subSetOfRange(final int fromIndex, final int toIndex) {
+        return new IntArraySet(elementData, fromIndex, toIndex, lookupTree);
+    }
+
+    public int firstInt() {
+        return elementData(fromIndex);
+    }
+
+    public int lastInt() {
+        return elementData(toIndex - 1);
+    }
+
+    @Override
+    public Integer first() {
+        return firstInt();
+    }
+
+    @Override
+    public Integer last() {
+        return lastInt();
+    }
+
+    private int elementData(final int index) {
+        if (size() == 0) {
+            throw new NoSuchElementException();
+        }
+        return elementData[index];
+    }
+
+    @Override
+    public int size() {
+        return toIndex - fromIndex;
+    }
+
+    // absolute index in elementData, or (-(insertion point) - 1)
+    private int indexOf(final int e) {
+        return Arrays.binarySearch(elementData, fromIndex, toIndex, e);
+    }
+
+    public boolean contains(final int e) {
+        if (lookupTree == null) {
+            return indexOf(e) >= 0;
+        }
+        // the copy may hold elements outside of this view
+        return fromIndex < toIndex && elementData[fromIndex] <= e && e <= elementData[toIndex - 1]
+                && Eytzinger.contains(lookupTree, e);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Integer e && contains(e.intValue());
+    }
+
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+        return Spliterators.iterator(spliterator());
+    }
+
+    @Override
+    public Spliterator.OfInt spliterator() {
+        return Spliterators.spliterator(
+                elementData, fromIndex, toIndex,
+                Spliterator.DISTINCT | Spliterator.SORTED | Spliterator.ORDERED | Spliterator.IMMUTABLE
+        );
+    }
+
+    public IntStream intStream() {
+        return StreamSupport.intStream(spliterator(), false);
+    }
+
+    public int[] toIntArray() {
+        return Arrays.copyOfRange(elementData, fromIndex, toIndex);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof IntArraySet other) {
+            return Arrays.equals(elementData, fromIndex, toIndex, other.elementData, other.fromIndex, other.toIndex);
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 0;
+        for (int i = fromIndex; i < toIndex; i++) {
+            hash += Integer.hashCode(elementData[i]);
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "IntArraySet{" +
+            "elementData=" + Arrays.toString(toIntArray()) +
+            '}';
+    }
+}
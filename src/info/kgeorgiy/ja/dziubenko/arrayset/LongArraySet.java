@@ -0,0 +1,202 @@
+package info.kgeorgiy.ja.dziubenko.arrayset;
+
+import java.util.*;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Immutable {@link SortedSet} of longs in natural order, backed by a sorted {@code long[]}.
+ * Views share the array of the set and hold the range of indices.
+ */
+@SuppressWarnings("unused")
+public class LongArraySet extends AbstractSet<Long> implements SortedSet<Long> {
+
+    private final long[] elementData;
+    private final int fromIndex;
+    private final int toIndex;
+    // Eytzinger layout of the set this one is a view of, or null
+    private final long[] lookupTree;
+
+    public LongArraySet(final long... elements) {
+        final long[] sorted = elements.clone();
+        Arrays.sort(sorted);
+        this.elementData = sorted;
+        this.fromIndex = 0;
+        this.toIndex = distinct(sorted);
+        this.lookupTree = null;
+    }
+
+    public LongArraySet(final Collection<Long> collection) {
+        this(collection.stream().mapToLong(Long::longValue).toArray());
+    }
+
+    public LongArraySet() {
+        this(new long[0]);
+    }
+
+    //constructor for subSet
+    private LongArraySet(final long[] elementData, final int fromIndex, final int toIndex, final long[] lookupTree) {
+        this.elementData = elementData;
+        this.fromIndex = fromIndex;
+        this.toIndex = toIndex;
+        this.lookupTree = lookupTree;
+    }
+
+    /**
+     * Returns set of the same elements, which answers {@link #contains(long)}
+     * with an {@link Eytzinger} copy of the elements. It takes extra {@code size()} longs
+     * and pays off for large sets queried many times. Views of the returned set share the copy.
+     */
+    public LongArraySet indexed() {
+        return lookupTree != null ? this : new LongArraySet(elementData, fromIndex, toIndex, Eytzinger.layout(elementData, fromIndex, toIndex));
+    }
+
+    // moves distinct elements of the sorted array to its head, returns their number
+    private static int distinct(final long[] sorted) {
+        int size = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[size - 1]) {
+                sorted[size++] = sorted[i];
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public Comparator<? super Long> comparator() {
+        return null;
+    }
+
+    public LongArraySet subSet(final long fromElement, final long toElement) {
+        if (fromElement > toElement) {
+            throw new IllegalArgumentException("fromElement > toElement");
+        }
+        return subSetOfRange(getInsertionPoint(fromElement), getInsertionPoint(toElement));
+    }
+
+    public LongArraySet headSet(final long toElement) {
+        return subSetOfRange(fromIndex, getInsertionPoint(toElement));
+    }
+
+    public LongArraySet tailSet(final long fromElement) {
+        return subSetOfRange(getInsertionPoint(fromElement), toIndex);
+    }
+
+    @Override
+    public LongArraySet subSet(final Long fromElement, final Long toElement) {
+        return subSet(fromElement.longValue(), toElement.longValue());
+    }
+
+    @Override
+    public LongArraySet headSet(final Long toElement) {
+        return headSet(toElement.longValue());
+    }
+
+    @Override
+    public LongArraySet tailSet(final Long fromElement) {
+        return tailSet(fromElement.longValue());
+    }
+
+    private int getInsertionPoint(final long e) {
+        int index = indexOf(e);
+        return index < 0 ? -index - 1 : index;
+    }
+
+    private LongArraySet subSetOfRange(final int fromIndex, final int toIndex) {
+        return new LongArraySet(elementData, fromIndex, toIndex, lookupTree);
+    }
+
+    public long firstLong() {
+        return elementData(fromIndex);
+    }
+
+    public long lastLong() {
+        return elementData(toIndex - 1);
+    }
+
+    @Override
+    public Long first() {
+        return firstLong();
+    }
+
+    @Override
+    public Long last() {
+        return lastLong();
+    }
+
+    private long elementData(final int index) {
+        if (size() == 0) {
+            throw new NoSuchElementException();
+        }
+        return elementData[index];
+    }
+
+    @Override
+    public int size() {
+        return toIndex - fromIndex;
+    }
+
+    // absolute index in elementData, or (-(insertion point) - 1)
+    private int indexOf(final long e) {
+        return Arrays.binarySearch(elementData, fromIndex, toIndex, e);
+    }
+
+    public boolean contains(final long e) {
+        if (lookupTree == null) {
+            return indexOf(e) >= 0;
+        }
+        // the copy may hold elements outside of this view
+        return fromIndex < toIndex && elementData[fromIndex] <= e && e <= elementData[toIndex - 1]
+                && Eytzinger.contains(lookupTree, e);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Long e && contains(e.longValue());
+    }
+
+    @Override
+    public PrimitiveIterator.OfLong iterator() {
+        return Spliterators.iterator(spliterator());
+    }
+
+    @Override
+    public Spliterator.OfLong spliterator() {
+        return Spliterators.spliterator(
+                elementData, fromIndex, toIndex,
+                Spliterator.DISTINCT | Spliterator.SORTED | Spliterator.ORDERED | Spliterator.IMMUTABLE
+        );
+    }
+
+    public LongStream longStream() {
+        return StreamSupport.longStream(spliterator(), false);
+    }
+
+    public long[] toLongArray() {
+        return Arrays.copyOfRange(elementData, fromIndex, toIndex);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof LongArraySet other) {
+            return Arrays.equals(elementData, fromIndex, toIndex, other.elementData, other.fromIndex, other.toIndex);
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 0;
+        for (int i = fromIndex; i < toIndex; i++) {
+            hash += Long.hashCode(elementData[i]);
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "LongArraySet{" +
+            "elementData=" + Arrays.toString(toLongArray()) +
+            '}';
+    }
+}
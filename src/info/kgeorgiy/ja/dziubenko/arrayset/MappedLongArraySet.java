@@ -0,0 +1,265 @@
+package info.kgeorgiy.ja.dziubenko.arrayset;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Immutable {@link SortedSet} of longs in natural order, stored in a memory-mapped file
+ * written by {@link #write}. Opening a set maps the file without reading it,
+ * and elements stay in the page cache rather than on the heap.
+ * Views share the mapping and hold the range of indices.
+ * <p>
+ * The file is a header of magic number, version and element count,
+ * followed by sorted distinct big-endian longs. A single mapping limits
+ * the file to 2 GiB. The mapping is released when the set and all its views
+ * are garbage collected.
+ */
+@SuppressWarnings("unused")
+public class MappedLongArraySet extends AbstractSet<Long> implements SortedSet<Long> {
+    private static final int MAGIC = 0x4C534554;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = Integer.BYTES * 2 + Long.BYTES;
+
+    private final LongBuffer elementData;
+    private final int fromIndex;
+    private final int toIndex;
+
+    //constructor for subSet
+    private MappedLongArraySet(final LongBuffer elementData, final int fromIndex, final int toIndex) {
+        this.elementData = elementData;
+        this.fromIndex = fromIndex;
+        this.toIndex = toIndex;
+    }
+
+    /**
+     * Maps the file written by {@link #write}. Elements are not read, so only the header is validated.
+     *
+     * @throws IOException if the file can't be mapped or is not a set file.
+     */
+    public static MappedLongArraySet open(final Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long fileSize = channel.size();
+            if (fileSize < HEADER_SIZE || fileSize > Integer.MAX_VALUE) {
+                throw new IOException("Invalid size of set file " + file + ": " + fileSize);
+            }
+            // the mapping stays valid after the channel is closed
+            final MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            final long size = mapped.getInt(0) == MAGIC && mapped.getInt(Integer.BYTES) == VERSION
+                    ? mapped.getLong(Integer.BYTES * 2)
+                    : -1;
+            if (size < 0 || HEADER_SIZE + size * Long.BYTES != fileSize) {
+                throw new IOException("Not a set file: " + file);
+            }
+            return new MappedLongArraySet(mapped.position(HEADER_SIZE).slice().asLongBuffer(), 0, (int) size);
+        }
+    }
+
+    /**
+     * Writes the set in natural order to the file, which can be {@link #open opened} later.
+     * The set is written to a temporary file, which atomically replaces the file,
+     * so sets opened from the old file stay valid.
+     *
+     * @throws IllegalArgumentException if the set is not in natural order.
+     */
+    public static void write(final Path file, final SortedSet<Long> set) throws IOException {
+        if (set.comparator() != null) {
+            throw new IllegalArgumentException("Set is not in natural order");
+        }
+        final Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        final Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(set.size());
+                for (long e : set) {
+                    out.writeLong(e);
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public Comparator<? super Long> comparator() {
+        return null;
+    }
+
+    public MappedLongArraySet subSet(final long fromElement, final long toElement) {
+        if (fromElement > toElement) {
+            throw new IllegalArgumentException("fromElement > toElement");
+        }
+        return subSetOfRange(getInsertionPoint(fromElement), getInsertionPoint(toElement));
+    }
+
+    public MappedLongArraySet headSet(final long toElement) {
+        return subSetOfRange(fromIndex, getInsertionPoint(toElement));
+    }
+
+    public MappedLongArraySet tailSet(final long fromElement) {
+        return subSetOfRange(getInsertionPoint(fromElement), toIndex);
+    }
+
+    @Override
+    public MappedLongArraySet subSet(final Long fromElement, final Long toElement) {
+        return subSet(fromElement.longValue(), toElement.longValue());
+    }
+
+    @Override
+    public MappedLongArraySet headSet(final Long toElement) {
+        return headSet(toElement.longValue());
+    }
+
+    @Override
+    public MappedLongArraySet tailSet(final Long fromElement) {
+        return tailSet(fromElement.longValue());
+    }
+
+    private int getInsertionPoint(final long e) {
+        int index = indexOf(e);
+        return index < 0 ? -index - 1 : index;
+    }
+
+    private MappedLongArraySet subSetOfRange(final int fromIndex, final int toIndex) {
+        return new MappedLongArraySet(elementData, fromIndex, toIndex);
+    }
+
+    public long firstLong() {
+        return elementData(fromIndex);
+    }
+
+    public long lastLong() {
+        return elementData(toIndex - 1);
+    }
+
+    @Override
+    public Long first() {
+        return firstLong();
+    }
+
+    @Override
+    public Long last() {
+        return lastLong();
+    }
+
+    private long elementData(final int index) {
+        if (size() == 0) {
+            throw new NoSuchElementException();
+        }
+        return elementData.get(index);
+    }
+
+    @Override
+    public int size() {
+        return toIndex - fromIndex;
+    }
+
+    // absolute index in elementData, or (-(insertion point) - 1)
+    private int indexOf(final long e) {
+        int low = fromIndex;
+        int high = toIndex - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final long element = elementData.get(mid);
+            if (element < e) {
+                low = mid + 1;
+            } else if (element > e) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -low - 1;
+    }
+
+    public boolean contains(final long e) {
+        return indexOf(e) >= 0;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Long e && contains(e.longValue());
+    }
+
+    @Override
+    public PrimitiveIterator.OfLong iterator() {
+        return Spliterators.iterator(spliterator());
+    }
+
+    @Override
+    public Spliterator.OfLong spliterator() {
+        return new BufferSpliterator(fromIndex, toIndex);
+    }
+
+    public LongStream longStream() {
+        return StreamSupport.longStream(spliterator(), false);
+    }
+
+    public long[] toLongArray() {
+        final long[] elements = new long[size()];
+        elementData.get(fromIndex, elements);
+        return elements;
+    }
+
+    @Override
+    public String toString() {
+        return "MappedLongArraySet{" +
+            "elementData=" + Arrays.toString(toLongArray()) +
+            '}';
+    }
+
+    private class BufferSpliterator implements Spliterator.OfLong {
+        private int index;
+        private final int end;
+
+        private BufferSpliterator(final int index, final int end) {
+            this.index = index;
+            this.end = end;
+        }
+
+        @Override
+        public boolean tryAdvance(final LongConsumer action) {
+            if (index < end) {
+                action.accept(elementData.get(index++));
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public OfLong trySplit() {
+            final int mid = (index + end) >>> 1;
+            return mid <= index ? null : new BufferSpliterator(index, index = mid);
+        }
+
+        @Override
+        public long estimateSize() {
+            return end - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return SIZED | SUBSIZED | DISTINCT | SORTED | ORDERED | IMMUTABLE | NONNULL;
+        }
+
+        @Override
+        public Comparator<? super Long> getComparator() {
+            return null;
+        }
+    }
+}
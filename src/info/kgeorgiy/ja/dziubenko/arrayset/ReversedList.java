@@ -0,0 +1,36 @@
+package info.kgeorgiy.ja.dziubenko.arrayset;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Unmodifiable view of a random access list in reverse order.
+ * Views of views and reverses of reverses are not stacked.
+ */
+class ReversedList<E> extends AbstractList<E> implements RandomAccess {
+    private final List<E> list;
+
+    private ReversedList(final List<E> list) {
+        this.list = list;
+    }
+
+    static <E> List<E> reverse(final List<E> list) {
+        return list instanceof ReversedList<E> reversed ? reversed.list : new ReversedList<>(list);
+    }
+
+    @Override
+    public E get(final int index) {
+        return list.get(list.size() - 1 - index);
+    }
+
+    @Override
+    public int size() {
+        return list.size();
+    }
+
+    @Override
+    public List<E> subList(final int fromIndex, final int toIndex) {
+        return new ReversedList<>(list.subList(size() - toIndex, size() - fromIndex));
+    }
+}
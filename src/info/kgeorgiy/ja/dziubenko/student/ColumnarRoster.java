@@ -0,0 +1,147 @@
+package info.kgeorgiy.ja.dziubenko.student;
+
+import java.util.*;
+
+/**
+ * Immutable list of students stored by columns: ids, first and last names as codes
+ * in a shared dictionary, and group ordinals. A row takes 13 bytes,
+ * and {@link Student} objects are created only by {@link #get}.
+ * <p>
+ * The dictionary is sorted, so codes of names compare as the names do.
+ */
+public class ColumnarRoster extends AbstractList<Student> implements RandomAccess {
+    private static final GroupName[] GROUPS = GroupName.values();
+
+    private final int[] ids;
+    private final int[] firstNames;
+    private final int[] lastNames;
+    private final byte[] groups;
+    private final String[] dictionary;
+
+    private ColumnarRoster(
+            final int[] ids,
+            final int[] firstNames,
+            final int[] lastNames,
+            final byte[] groups,
+            final String[] dictionary
+    ) {
+        this.ids = ids;
+        this.firstNames = firstNames;
+        this.lastNames = lastNames;
+        this.groups = groups;
+        this.dictionary = dictionary;
+    }
+
+    public static ColumnarRoster of(final Collection<Student> students) {
+        final Builder builder = new Builder(students.size());
+        for (Student student : students) {
+            builder.add(student.getId(), student.getFirstName(), student.getLastName(), student.getGroup());
+        }
+        return builder.build();
+    }
+
+    @Override
+    public Student get(final int index) {
+        return new Student(ids[index], dictionary[firstNames[index]], dictionary[lastNames[index]], GROUPS[groups[index]]);
+    }
+
+    @Override
+    public int size() {
+        return ids.length;
+    }
+
+    int id(final int row) {
+        return ids[row];
+    }
+
+    int firstNameCode(final int row) {
+        return firstNames[row];
+    }
+
+    int lastNameCode(final int row) {
+        return lastNames[row];
+    }
+
+    GroupName group(final int row) {
+        return GROUPS[groups[row]];
+    }
+
+    int groupOrdinal(final int row) {
+        return groups[row];
+    }
+
+    String name(final int code) {
+        return dictionary[code];
+    }
+
+    int dictionarySize() {
+        return dictionary.length;
+    }
+
+    /**
+     * Returns code of the name, or a negative number if no student has it.
+     */
+    int code(final String name) {
+        return Arrays.binarySearch(dictionary, name);
+    }
+
+    /**
+     * Collects rows without creating {@link Student} objects.
+     * Names get temporary codes in order of appearance, which are replaced by sorted ones in {@link #build}.
+     */
+    public static class Builder {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private int[] ids;
+        private int[] firstNames;
+        private int[] lastNames;
+        private byte[] groups;
+        private int size;
+
+        public Builder() {
+            this(16);
+        }
+
+        public Builder(final int capacity) {
+            ids = new int[capacity];
+            firstNames = new int[capacity];
+            lastNames = new int[capacity];
+            groups = new byte[capacity];
+        }
+
+        public Builder add(final int id, final String firstName, final String lastName, final GroupName group) {
+            if (size == ids.length) {
+                final int capacity = Math.max(16, size * 2);
+                ids = Arrays.copyOf(ids, capacity);
+                firstNames = Arrays.copyOf(firstNames, capacity);
+                lastNames = Arrays.copyOf(lastNames, capacity);
+                groups = Arrays.copyOf(groups, capacity);
+            }
+            ids[size] = id;
+            firstNames[size] = code(firstName);
+            lastNames[size] = code(lastName);
+            groups[size] = (byte) group.ordinal();
+            size++;
+            return this;
+        }
+
+        private int code(final String name) {
+            return codes.computeIfAbsent(Objects.requireNonNull(name), ignored -> codes.size());
+        }
+
+        public ColumnarRoster build() {
+            final String[] dictionary = codes.keySet().toArray(String[]::new);
+            Arrays.sort(dictionary);
+            final int[] sortedCodes = new int[dictionary.length];
+            for (int i = 0; i < dictionary.length; i++) {
+                sortedCodes[codes.get(dictionary[i])] = i;
+            }
+            final int[] first = Arrays.copyOf(firstNames, size);
+            final int[] last = Arrays.copyOf(lastNames, size);
+            for (int i = 0; i < size; i++) {
+                first[i] = sortedCodes[first[i]];
+                last[i] = sortedCodes[last[i]];
+            }
+            return new ColumnarRoster(Arrays.copyOf(ids, size), first, last, Arrays.copyOf(groups, size), dictionary);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package info.kgeorgiy.ja.dziubenko.student;
+
+import java.util.*;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.IntStream;
+
+/**
+ * {@link StudentDB}, which answers queries about {@link ColumnarRoster columnar rosters}
+ * by scanning their columns: names are compared by dictionary codes, and {@link Student}
+ * objects are created only for returned students. Other collections are queried as by {@link StudentDB}.
+ */
+public class ColumnarStudentDB extends StudentDB {
+    // counting sort is used for at least (dictionary size / ratio) rows
+    private static final int COUNTING_SORT_RATIO = 8;
+
+    @Override
+    public List<String> getFirstNames(List<Student> students) {
+        if (students instanceof ColumnarRoster roster) {
+            return column(roster, row -> roster.name(roster.firstNameCode(row)));
+        }
+        return super.getFirstNames(students);
+    }
+
+    @Override
+    public List<String> getLastNames(List<Student> students) {
+        if (students instanceof ColumnarRoster roster) {
+            return column(roster, row -> roster.name(roster.lastNameCode(row)));
+        }
+        return super.getLastNames(students);
+    }
+
+    @Override
+    public List<GroupName> getGroups(List<Student> students) {
+        if (students instanceof ColumnarRoster roster) {
+            return column(roster, roster::group);
+        }
+        return super.getGroups(students);
+    }
+
+    @Override
+    public List<String> getFullNames(List<Student> students) {
+        if (students instanceof ColumnarRoster roster) {
+            return column(roster, row -> roster.name(roster.firstNameCode(row)) + " " + roster.name(roster.lastNameCode(row)));
+        }
+        return super.getFullNames(students);
+    }
+
+    private static <T> List<T> column(final ColumnarRoster roster, final IntFunction<T> value) {
+        return IntStream.range(0, roster.size())
+                .mapToObj(value)
+                .toList();
+    }
+
+    @Override
+    public Set<String> getDistinctFirstNames(List<Student> students) {
+        if (students instanceof ColumnarRoster roster) {
+            final BitSet codes = new BitSet(roster.dictionarySize());
+            for (int row = 0; row < roster.size(); row++) {
+                codes.set(roster.firstNameCode(row));
+            }
+            final TreeSet<String> names = new TreeSet<>();
+            codes.stream().forEach(code -> names.add(roster.name(code)));
+            return names;
+        }
+        return super.getDistinctFirstNames(students);
+    }
+
+    @Override
+    public String getMaxStudentFirstName(List<Student> students) {
+        if (students instanceof ColumnarRoster roster) {
+            int max = -1;
+            for (int row = 0; row < roster.size(); row++) {
+                if (max < 0 || roster.id(row) > roster.id(max)) {
+                    max = row;
+                }
+            }
+            return max < 0 ? "" : roster.name(roster.firstNameCode(max));
+        }
+        return super.getMaxStudentFirstName(students);
+    }
+
+    @Override
+    public List<Student> sortStudentsById(Collection<Student> students) {
+        if (students instanceof ColumnarRoster roster) {
+            return Arrays.stream(sortById(roster, IntStream.range(0, roster.size()).toArray()))
+                    .mapToObj(roster::get)
+                    .toList();
+        }
+        return super.sortStudentsById(students);
+    }
+
+    @Override
+    public List<Student> sortStudentsByName(Collection<Student> students) {
+        if (students instanceof ColumnarRoster roster) {
+            return sortedByName(roster, row -> true);
+        }
+        return super.sortStudentsByName(students);
+    }
+
+    @Override
+    public List<Student> findStudentsByFirstName(Collection<Student> students, String name) {
+        if (students instanceof ColumnarRoster roster) {
+            final int code = roster.code(name);
+            return code < 0 ? List.of() : sortedByName(roster, row -> roster.firstNameCode(row) == code);
+        }
+        return super.findStudentsByFirstName(students, name);
+    }
+
+    @Override
+    public List<Student> findStudentsByLastName(Collection<Student> students, String name) {
+        if (students instanceof ColumnarRoster roster) {
+            final int code = roster.code(name);
+            return code < 0 ? List.of() : sortedByName(roster, row -> roster.lastNameCode(row) == code);
+        }
+        return super.findStudentsByLastName(students, name);
+    }
+
+    @Override
+    public List<Student> findStudentsByGroup(Collection<Student> students, GroupName group) {
+        if (students instanceof ColumnarRoster roster) {
+            final int ordinal = group.ordinal();
+            return sortedByName(roster, row -> roster.groupOrdinal(row) == ordinal);
+        }
+        return super.findStudentsByGroup(students, group);
+    }
+
+    @Override
+    public Map<String, String> findStudentNamesByGroup(Collection<Student> students, GroupName group) {
+        if (students instanceof ColumnarRoster roster) {
+            // last name code -> minimal first name code
+            final Map<Integer, Integer> names = new HashMap<>();
+            final int ordinal = group.ordinal();
+            for (int row = 0; row < roster.size(); row++) {
+                if (roster.groupOrdinal(row) == ordinal) {
+                    names.merge(roster.lastNameCode(row), roster.firstNameCode(row), Math::min);
+                }
+            }
+            final Map<String, String> result = new HashMap<>();
+            names.forEach((last, first) -> result.put(roster.name(last), roster.name(first)));
+            return result;
+        }
+        return super.findStudentNamesByGroup(students, group);
+    }
+
+    /*
+     * Rows are ordered as by STUDENT_NAME_COMPARATOR without comparing names: rows sorted by ids
+     * are stably sorted by codes of names. Counting sorts by codes of first names and then
+     * of last names are used, unless there are few rows compared to the size of the dictionary.
+     */
+    private static List<Student> sortedByName(final ColumnarRoster roster, final IntPredicate filter) {
+        final int[] rows = IntStream.range(0, roster.size())
+                .filter(filter)
+                .toArray();
+        final int[] byId = sortById(roster, rows);
+        // names in descending order: codes are inverted
+        final int maxCode = roster.dictionarySize() - 1;
+        final IntUnaryOperator firstName = row -> maxCode - roster.firstNameCode(row);
+        final IntUnaryOperator lastName = row -> maxCode - roster.lastNameCode(row);
+        if (rows.length < roster.dictionarySize() / COUNTING_SORT_RATIO) {
+            return Arrays.stream(byId)
+                    .boxed()
+                    .sorted(Comparator.comparingInt(lastName::applyAsInt).thenComparingInt(firstName::applyAsInt))
+                    .map(roster::get)
+                    .toList();
+        }
+        return Arrays.stream(countingSort(countingSort(byId, firstName, maxCode + 1), lastName, maxCode + 1))
+                .mapToObj(roster::get)
+                .toList();
+    }
+
+    private static int[] sortById(final ColumnarRoster roster, final int[] rows) {
+        // id in high bits, index in low bits: sorting by ids keeps rows with equal ids in order
+        final long[] keys = new long[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            keys[i] = (long) roster.id(rows[i]) << Integer.SIZE | i;
+        }
+        Arrays.sort(keys);
+        final int[] sorted = new int[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            sorted[i] = rows[(int) keys[i]];
+        }
+        return sorted;
+    }
+
+    private static int[] countingSort(final int[] rows, final IntUnaryOperator key, final int keys) {
+        final int[] starts = new int[keys + 1];
+        for (int row : rows) {
+            starts[key.applyAsInt(row) + 1]++;
+        }
+        for (int i = 0; i < keys; i++) {
+            starts[i + 1] += starts[i];
+        }
+        final int[] sorted = new int[rows.length];
+        for (int row : rows) {
+            sorted[starts[key.applyAsInt(row)]++] = row;
+        }
+        return sorted;
+    }
+}
@@ -0,0 +1,71 @@
+package info.kgeorgiy.ja.dziubenko.student;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable list of students with hash indexes by first name, last name and group,
+ * built once by {@link #of}. Every index bucket is ordered by name.
+ */
+public class IndexedRoster extends AbstractList<Student> implements RandomAccess {
+    private final List<Student> students;
+    private final List<Student> byName;
+    private final Map<String, List<Student>> byFirstName;
+    private final Map<String, List<Student>> byLastName;
+    private final Map<GroupName, List<Student>> byGroup;
+
+    // students are sorted once, and grouping keeps the order inside buckets
+    private IndexedRoster(final List<Student> students) {
+        this.students = students;
+        this.byName = students.stream()
+                .sorted(StudentDB.STUDENT_NAME_COMPARATOR)
+                .toList();
+        this.byFirstName = index(byName, Student::getFirstName, HashMap::new);
+        this.byLastName = index(byName, Student::getLastName, HashMap::new);
+        this.byGroup = index(byName, Student::getGroup, () -> new EnumMap<>(GroupName.class));
+    }
+
+    public static IndexedRoster of(final Collection<Student> students) {
+        return students instanceof IndexedRoster roster ? roster : new IndexedRoster(List.copyOf(students));
+    }
+
+    private static <K, M extends Map<K, List<Student>>> M index(
+            final List<Student> byName,
+            final Function<Student, K> key,
+            final Supplier<M> map
+    ) {
+        return byName.stream().collect(Collectors.groupingBy(
+                key,
+                map,
+                Collectors.collectingAndThen(Collectors.toList(), Collections::unmodifiableList)
+        ));
+    }
+
+    @Override
+    public Student get(final int index) {
+        return students.get(index);
+    }
+
+    @Override
+    public int size() {
+        return students.size();
+    }
+
+    List<Student> byName() {
+        return byName;
+    }
+
+    List<Student> byFirstName(final String name) {
+        return byFirstName.getOrDefault(name, List.of());
+    }
+
+    List<Student> byLastName(final String name) {
+        return byLastName.getOrDefault(name, List.of());
+    }
+
+    List<Student> byGroup(final GroupName group) {
+        return byGroup.getOrDefault(group, List.of());
+    }
+}
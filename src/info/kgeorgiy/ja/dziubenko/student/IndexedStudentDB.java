@@ -0,0 +1,51 @@
+package info.kgeorgiy.ja.dziubenko.student;
+
+import java.util.*;
+
+/**
+ * {@link StudentDB}, which answers equality lookups about {@link IndexedRoster indexed rosters}
+ * by their hash indexes instead of scanning, so a lookup costs {@code O(matches)}.
+ * Other collections are queried as by {@link StudentDB}.
+ */
+public class IndexedStudentDB extends StudentDB {
+
+    @Override
+    public List<Student> sortStudentsByName(Collection<Student> students) {
+        if (students instanceof IndexedRoster roster) {
+            return roster.byName();
+        }
+        return super.sortStudentsByName(students);
+    }
+
+    @Override
+    public List<Student> findStudentsByFirstName(Collection<Student> students, String name) {
+        if (students instanceof IndexedRoster roster) {
+            return roster.byFirstName(name);
+        }
+        return super.findStudentsByFirstName(students, name);
+    }
+
+    @Override
+    public List<Student> findStudentsByLastName(Collection<Student> students, String name) {
+        if (students instanceof IndexedRoster roster) {
+            return roster.byLastName(name);
+        }
+        return super.findStudentsByLastName(students, name);
+    }
+
+    @Override
+    public List<Student> findStudentsByGroup(Collection<Student> students, GroupName group) {
+        if (students instanceof IndexedRoster roster) {
+            return roster.byGroup(group);
+        }
+        return super.findStudentsByGroup(students, group);
+    }
+
+    @Override
+    public Map<String, String> findStudentNamesByGroup(Collection<Student> students, GroupName group) {
+        if (students instanceof IndexedRoster roster) {
+            return super.findStudentNamesByGroup(roster.byGroup(group), group);
+        }
+        return super.findStudentNamesByGroup(students, group);
+    }
+}
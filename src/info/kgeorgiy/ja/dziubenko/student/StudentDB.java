@@ -9,7 +9,7 @@ import java.util.stream.Stream;
 @SuppressWarnings("unused")
 public class StudentDB implements StudentQuery {
 
-    private static final Comparator<Student> STUDENT_NAME_COMPARATOR =
+    static final Comparator<Student> STUDENT_NAME_COMPARATOR =
             Comparator.comparing(Student::getLastName, Comparator.reverseOrder())
                     .thenComparing(Student::getFirstName, Comparator.reverseOrder())
                     .thenComparing(Student::compareTo);
@@ -0,0 +1,200 @@
+package info.kgeorgiy.ja.dziubenko.walk;
+
+import info.kgeorgiy.ja.dziubenko.walk.exceptions.*;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * {@link Walk} which writes groups of files with equal contents.
+ * <p>
+ * Files are filtered in stages: only files sharing their size with another file
+ * are probed by hash of first and last {@value PROBE_SIZE} bytes, and only files
+ * colliding on probes are hashed completely. Unreadable files are skipped.
+ * <p>
+ * Every group is written as {@code hash name} lines followed by an empty line.
+ * Groups are ordered by file size descending, files of a group keep input order.
+ */
+public class DuplicateWalk {
+    private static final int PROBE_SIZE = 4096;
+
+    public static void main(String[] args) {
+        try {
+            run(args);
+        } catch (WalkException e) {
+            Walk.printErr(e.getMessage());
+        }
+    }
+
+    private static void run(String[] args) throws WalkException {
+        final WalkArguments arguments = WalkArguments.parse(args, WalkArguments.HASHING_OPTIONS);
+
+        final int threads = arguments.threads();
+        final Path cacheFile = arguments.optionalPath(WalkArguments.CACHE);
+        final List<String> algorithms = arguments.algorithms(Walk.SHA_256);
+
+        Walk.createHashFunctions(algorithms);
+        final HashCache cache = Walk.loadCache(cacheFile, algorithms);
+        final WalkStatistics statistics = Walk.startStatistics(arguments);
+        final ThreadLocal<HashCalculator> hashCalculators =
+                Walk.threadLocalCalculators(algorithms, cache, arguments.engine(), statistics);
+
+        final List<String> fileNames = new ArrayList<>();
+        try (BufferedReader reader = Walk.newReader(arguments)) {
+            String fileName;
+            while ((fileName = Walk.readFileName(reader)) != null) {
+                fileNames.add(fileName);
+            }
+        } catch (IOException | SecurityException e) {
+            throw new ReadingWalkException("Can't read from input file: " + e.getMessage());
+        }
+
+        final List<Group> duplicates;
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            duplicates = findDuplicates(executor, hashCalculators, fileNames);
+        } finally {
+            executor.shutdownNow();
+            Walk.finishStatistics(statistics);
+        }
+
+        try (BufferedWriter writer = Walk.newWriter(arguments)) {
+            for (Group group : duplicates) {
+                for (String fileName : group.fileNames()) {
+                    Walk.writeFileData(fileName, group.hash(), writer);
+                }
+                writer.newLine();
+            }
+        } catch (IOException | SecurityException e) {
+            throw new WritingWalkException("Can't write to output file: " + e.getMessage());
+        }
+
+        if (cache != null) {
+            Walk.saveCache(cache, cacheFile);
+        }
+    }
+
+    private static List<Group> findDuplicates(
+            final ExecutorService executor,
+            final ThreadLocal<HashCalculator> hashCalculators,
+            final List<String> fileNames
+    ) throws HashingWalkException {
+        final List<Group> bySize = collide(
+                executor,
+                List.of(new Group(0, "", fileNames)),
+                DuplicateWalk::size,
+                (group, size, names) -> new Group(size, group.hash(), names)
+        );
+
+        final List<Group> byProbe = collide(
+                executor,
+                bySize,
+                fileName -> valid(hashCalculators.get(), hashCalculators.get().calculatePartialHash(fileName, PROBE_SIZE)),
+                DuplicateWalk::withHash
+        );
+
+        final List<Group> candidates = new ArrayList<>();
+        final List<Group> result = new ArrayList<>();
+        for (Group group : byProbe) {
+            // probes of small files cover whole contents
+            (group.size() <= 2L * PROBE_SIZE ? result : candidates).add(group);
+        }
+        result.addAll(collide(
+                executor,
+                candidates,
+                fileName -> valid(hashCalculators.get(), hashCalculators.get().calculateFileHash(fileName)),
+                DuplicateWalk::withHash
+        ));
+        result.sort(Comparator.comparingLong(Group::size).reversed().thenComparing(Group::hash));
+        return result;
+    }
+
+    private static Long size(final String fileName) {
+        try {
+            return Files.size(Path.of(fileName));
+        } catch (IOException | SecurityException | InvalidPathException e) {
+            return null;
+        }
+    }
+
+    private static Group withHash(final Group group, final String hash, final List<String> fileNames) {
+        return new Group(group.size(), hash, fileNames);
+    }
+
+    private static String valid(final HashCalculator hashCalculator, final String hash) {
+        return hash.equals(hashCalculator.getErrorHash()) ? null : hash;
+    }
+
+    /*
+     * Splits every group by the key and keeps subgroups of at least two files.
+     * Files with null key are dropped. Keys of all groups are calculated in parallel.
+     */
+    private static <K> List<Group> collide(
+            final ExecutorService executor,
+            final Collection<Group> groups,
+            final Function<String, K> key,
+            final Subgroup<K> subgroup
+    ) throws HashingWalkException {
+        final List<List<Future<K>>> keys = new ArrayList<>(groups.size());
+        for (Group group : groups) {
+            final List<Future<K>> groupKeys = new ArrayList<>(group.fileNames().size());
+            for (String fileName : group.fileNames()) {
+                groupKeys.add(executor.submit(() -> key.apply(fileName)));
+            }
+            keys.add(groupKeys);
+        }
+
+        final List<Group> result = new ArrayList<>();
+        int index = 0;
+        for (Group group : groups) {
+            final List<Future<K>> groupKeys = keys.get(index++);
+            final Map<K, List<String>> subgroups = new LinkedHashMap<>();
+            for (int i = 0; i < groupKeys.size(); i++) {
+                final K k = get(groupKeys.get(i));
+                if (k != null) {
+                    subgroups.computeIfAbsent(k, ignored -> new ArrayList<>()).add(group.fileNames().get(i));
+                }
+            }
+            for (Map.Entry<K, List<String>> entry : subgroups.entrySet()) {
+                if (entry.getValue().size() > 1) {
+                    result.add(subgroup.of(group, entry.getKey(), entry.getValue()));
+                }
+            }
+        }
+        return result;
+    }
+
+    private static <T> T get(final Future<T> future) throws HashingWalkException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HashingWalkException("Interrupted while grouping files");
+        } catch (ExecutionException e) {
+            throw new HashingWalkException(e.getCause().getMessage());
+        }
+    }
+
+    private record Group(long size, String hash, List<String> fileNames) {
+    }
+
+    @FunctionalInterface
+    private interface Subgroup<K> {
+        Group of(Group group, K key, List<String> fileNames);
+    }
+}
@@ -0,0 +1,164 @@
+package info.kgeorgiy.ja.dziubenko.walk;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Persistent cache of file hashes keyed by path, size, modification time and file key.
+ * <p>
+ * The cache file is a binary list of entries sorted by path.
+ * Entries which were not looked up during a run are evicted on {@link #save()}.
+ * Instances are thread-safe.
+ */
+public class HashCache {
+    private static final int MAGIC = 0x57414C4B;
+    private static final int VERSION = 2;
+
+    private final Path file;
+    private final String algorithm;
+    private final Map<String, Entry> loaded;
+    private final Map<String, Entry> current = new ConcurrentHashMap<>();
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+
+    private HashCache(final Path file, final String algorithm, final Map<String, Entry> loaded) {
+        this.file = file;
+        this.algorithm = algorithm;
+        this.loaded = loaded;
+    }
+
+    /**
+     * Loads cache from file. Missing, corrupted or foreign-algorithm cache files give an empty cache.
+     *
+     * @param file      cache file.
+     * @param algorithm comma-separated names of the hash algorithms the cached hashes are calculated with.
+     */
+    public static HashCache load(final Path file, final String algorithm) {
+        final Map<String, Entry> loaded = new ConcurrentHashMap<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() == MAGIC && in.readInt() == VERSION && in.readUTF().equals(algorithm)) {
+                final int size = in.readInt();
+                for (int i = 0; i < size; i++) {
+                    final String path = in.readUTF();
+                    final Stamp stamp = new Stamp(in.readLong(), in.readLong(), in.readUTF());
+                    final byte[] hash = new byte[in.readUnsignedShort()];
+                    in.readFully(hash);
+                    loaded.put(path, new Entry(stamp, hash));
+                }
+            }
+        } catch (NoSuchFileException ignored) {
+        } catch (IOException | SecurityException e) {
+            loaded.clear();
+        }
+        return new HashCache(file, algorithm, loaded);
+    }
+
+    /**
+     * Reads stamp of a file, which has to be passed to {@link #get} and {@link #put}.
+     */
+    public static Stamp stamp(final Path path) throws IOException {
+        final BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        final Object fileKey = attributes.fileKey();
+        return new Stamp(
+                attributes.size(),
+                attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS),
+                fileKey == null ? "" : fileKey.toString()
+        );
+    }
+
+    /**
+     * Returns cached hash of the file, or {@code null} if the file is absent or changed.
+     */
+    public byte[] get(final Path path, final Stamp stamp) {
+        final String key = key(path);
+        Entry entry = current.get(key);
+        if (entry == null) {
+            entry = loaded.remove(key);
+        }
+        if (entry != null && entry.stamp().equals(stamp)) {
+            current.put(key, entry);
+            hits.incrementAndGet();
+            return entry.hash();
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    public void put(final Path path, final Stamp stamp, final byte[] hash) {
+        current.put(key(path), new Entry(stamp, hash));
+    }
+
+    public int hits() {
+        return hits.get();
+    }
+
+    public int misses() {
+        return misses.get();
+    }
+
+    /**
+     * Writes entries used during this run to the cache file.
+     * Entries are written to a temporary file, which atomically replaces the cache file,
+     * so a failed save keeps the previous cache.
+     */
+    public void save() throws IOException {
+        final Map<String, Entry> sorted = new TreeMap<>(current);
+        final Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        final Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeUTF(algorithm);
+                out.writeInt(sorted.size());
+                for (Map.Entry<String, Entry> entry : sorted.entrySet()) {
+                    final Stamp stamp = entry.getValue().stamp();
+                    out.writeUTF(entry.getKey());
+                    out.writeLong(stamp.size());
+                    out.writeLong(stamp.modified());
+                    out.writeUTF(stamp.fileKey());
+                    out.writeShort(entry.getValue().hash().length);
+                    out.write(entry.getValue().hash());
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static String key(final Path path) {
+        return path.toAbsolutePath().normalize().toString();
+    }
+
+    /**
+     * File metadata, which has to be unchanged for a cached hash to be valid.
+     *
+     * @param size     file size in bytes.
+     * @param modified last modification time in nanoseconds.
+     * @param fileKey  string form of the file key (inode), or empty string if it is unavailable.
+     */
+    public record Stamp(long size, long modified, String fileKey) {
+        public Stamp {
+            Objects.requireNonNull(fileKey);
+        }
+    }
+
+    private record Entry(Stamp stamp, byte[] hash) {
+    }
+}
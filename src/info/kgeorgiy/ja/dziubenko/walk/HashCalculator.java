@@ -2,33 +2,426 @@ package info.kgeorgiy.ja.dziubenko.walk;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.InvalidPathException;
+import java.nio.file.StandardOpenOption;
 import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
+/**
+ * Calculates hashes of files with one or several {@link HashFunction hash functions}.
+ * Every read buffer is fed to all functions, so a file is read once.
+ * The result has one hex column per function, separated by spaces.
+ */
 public class HashCalculator {
-    private final MessageDigest messageDigest;
+    // files smaller than this are read through the heap buffer
+    public static final long CHANNEL_THRESHOLD = 1L << 16;
+    // files starting from this size are memory-mapped
+    public static final long MAPPING_THRESHOLD = 1L << 26;
+    public static final int DIRECT_BUFFER_SIZE = 1 << 16;
+    public static final long MAPPING_CHUNK_SIZE = 1L << 30;
+    // number of reads kept in flight by the asynchronous engine
+    public static final int ASYNC_DEPTH = 4;
+    // one of this many buffer updates is timed, and digesting time of a file is extrapolated by bytes
+    private static final int DIGEST_SAMPLE_RATE = 32;
+
+    private final List<HashFunction> hashFunctions;
+    private final int hashLength;
     private final String errorHash;
     private final byte[] buffer;
+    private final HashCache cache;
+    private final Engine engine;
+    private final WalkStatistics statistics;
+    private ByteBuffer directBuffer;
+    private ByteBuffer[] asyncBuffers;
+    // counters of the current file
+    private long fileBytes;
+    private long openNanos;
+    private int updates;
+    private long sampledBytes;
+    private long sampledNanos;
 
     public HashCalculator(final MessageDigest messageDigest, final int bufferSize) {
-        this.messageDigest = messageDigest;
-        errorHash = "0".repeat(messageDigest.getDigestLength() << 1);
+        this(List.of(new HashFunction.DigestFunction(messageDigest)), bufferSize, null);
+    }
+
+    /**
+     * Constructs calculator, which looks up unchanged files in the cache before reading them.
+     *
+     * @param hashFunctions functions, owned by this calculator.
+     * @param cache         shared hash cache, or {@code null} to read every file.
+     */
+    public HashCalculator(final List<HashFunction> hashFunctions, final int bufferSize, final HashCache cache) {
+        this(hashFunctions, bufferSize, cache, Engine.CHANNEL);
+    }
+
+    /**
+     * Constructs calculator with the given read engine.
+     *
+     * @param hashFunctions functions, owned by this calculator.
+     * @param cache         shared hash cache, or {@code null} to read every file.
+     * @param engine        the way files are read.
+     */
+    public HashCalculator(
+            final List<HashFunction> hashFunctions,
+            final int bufferSize,
+            final HashCache cache,
+            final Engine engine
+    ) {
+        this(hashFunctions, bufferSize, cache, engine, null);
+    }
+
+    /**
+     * Constructs calculator, which reports every file of {@link #calculateDigest} to the statistics.
+     *
+     * @param hashFunctions functions, owned by this calculator.
+     * @param cache         shared hash cache, or {@code null} to read every file.
+     * @param engine        the way files are read.
+     * @param statistics    shared statistics, or {@code null} to skip time measurements.
+     */
+    public HashCalculator(
+            final List<HashFunction> hashFunctions,
+            final int bufferSize,
+            final HashCache cache,
+            final Engine engine,
+            final WalkStatistics statistics
+    ) {
+        this.hashFunctions = List.copyOf(hashFunctions);
+        hashLength = hashFunctions.stream().mapToInt(HashFunction::length).sum();
+        errorHash = format(new byte[hashLength]);
         buffer = new byte[bufferSize];
+        this.cache = cache;
+        this.engine = engine;
+        this.statistics = statistics;
     }
 
     public String calculateFileHash(final String fileName) {
-        try (InputStream is = Files.newInputStream(Path.of(fileName))) {
-            int readBytes;
-            while ((readBytes = is.read(buffer)) >= 0) {
-                messageDigest.update(buffer, 0, readBytes);
+        final Path path;
+        try {
+            path = Path.of(fileName);
+        } catch (InvalidPathException e) {
+            if (statistics != null) {
+                statistics.fileFailed(fileName, 0, e);
+            }
+            return errorHash;
+        }
+        try {
+            return format(calculateDigest(path));
+        } catch (IOException | SecurityException e) {
+            return errorHash;
+        }
+    }
+
+    /**
+     * Returns concatenated raw digests of the file, looking it up in the cache first.
+     *
+     * @throws IOException if the file can't be read.
+     */
+    public byte[] calculateDigest(final Path path) throws IOException {
+        final long start = now();
+        fileBytes = openNanos = sampledBytes = sampledNanos = 0;
+        updates = 0;
+        try {
+            final byte[] hash = lookupDigest(path);
+            if (statistics != null) {
+                // reading time is what remains after opening and digesting
+                final long latency = now() - start;
+                final long digestNanos = sampledBytes == 0
+                        ? sampledNanos
+                        : Math.min(latency - openNanos, (long) ((double) sampledNanos * fileBytes / sampledBytes));
+                statistics.fileHashed(
+                        path.toString(), fileBytes, latency,
+                        openNanos, latency - openNanos - digestNanos, digestNanos
+                );
+            }
+            return hash;
+        } catch (IOException | RuntimeException e) {
+            if (statistics != null) {
+                statistics.fileFailed(path.toString(), now() - start, e);
+            }
+            throw e;
+        }
+    }
+
+    private byte[] lookupDigest(final Path path) throws IOException {
+        if (cache == null) {
+            return calculateFileHash(path);
+        }
+        final HashCache.Stamp stamp = HashCache.stamp(path);
+        byte[] hash = cache.get(path, stamp);
+        if (hash == null) {
+            hash = calculateFileHash(path);
+            cache.put(path, stamp, hash);
+        }
+        return hash;
+    }
+
+    private long now() {
+        return statistics == null ? 0 : System.nanoTime();
+    }
+
+    /**
+     * Returns hash of at most {@code probeSize} first and {@code probeSize} last bytes of the file.
+     * Files not longer than {@code 2 * probeSize} are hashed completely.
+     */
+    public String calculatePartialHash(final String fileName, final int probeSize) {
+        try (FileChannel channel = FileChannel.open(Path.of(fileName), StandardOpenOption.READ)) {
+            final long size = channel.size();
+            if (size <= 2L * probeSize) {
+                updateWithHeapBuffer(channel);
+            } else {
+                updateWithRange(channel, 0, probeSize);
+                updateWithRange(channel, size - probeSize, probeSize);
             }
-            return HexFormat.of().formatHex(messageDigest.digest());
+            return format(digest());
         } catch (IOException | SecurityException | InvalidPathException e) {
-            messageDigest.reset();
+            hashFunctions.forEach(HashFunction::reset);
             return errorHash;
         }
     }
+
+    public String getErrorHash() {
+        return errorHash;
+    }
+
+    private String format(final byte[] hash) {
+        final HexFormat hexFormat = HexFormat.of();
+        final StringBuilder sb = new StringBuilder((hashLength << 1) + hashFunctions.size());
+        int offset = 0;
+        for (HashFunction hashFunction : hashFunctions) {
+            if (offset > 0) {
+                sb.append(' ');
+            }
+            hexFormat.formatHex(sb, hash, offset, offset + hashFunction.length());
+            offset += hashFunction.length();
+        }
+        return sb.toString();
+    }
+
+    private byte[] calculateFileHash(final Path path) throws IOException {
+        if (engine == Engine.ASYNC) {
+            return calculateFileHashAsynchronously(path);
+        }
+        if (engine == Engine.STREAM) {
+            return calculateFileHashWithStream(path);
+        }
+        final long start = now();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            openNanos = now() - start;
+            final long size = channel.size();
+            if (engine == Engine.HEAP || engine == Engine.CHANNEL && size < CHANNEL_THRESHOLD) {
+                updateWithHeapBuffer(channel);
+            } else if (engine == Engine.DIRECT || engine == Engine.CHANNEL && size < MAPPING_THRESHOLD) {
+                updateWithDirectBuffer(channel);
+            } else {
+                updateWithMapping(channel, size);
+            }
+            return digest();
+        } catch (IOException | RuntimeException e) {
+            hashFunctions.forEach(HashFunction::reset);
+            throw e;
+        }
+    }
+
+    private byte[] calculateFileHashWithStream(final Path path) throws IOException {
+        final long start = now();
+        try (InputStream stream = Files.newInputStream(path)) {
+            openNanos = now() - start;
+            int readBytes;
+            while ((readBytes = stream.read(buffer)) >= 0) {
+                update(readBytes);
+            }
+            return digest();
+        } catch (IOException | RuntimeException e) {
+            hashFunctions.forEach(HashFunction::reset);
+            throw e;
+        }
+    }
+
+    /*
+     * Keeps ASYNC_DEPTH consecutive reads in flight and consumes them in file order.
+     * A short read is completed before the next slot is consumed.
+     */
+    private byte[] calculateFileHashAsynchronously(final Path path) throws IOException {
+        if (asyncBuffers == null) {
+            asyncBuffers = new ByteBuffer[ASYNC_DEPTH];
+            for (int i = 0; i < ASYNC_DEPTH; i++) {
+                asyncBuffers[i] = ByteBuffer.allocateDirect(DIRECT_BUFFER_SIZE);
+            }
+        }
+        final List<Future<Integer>> reads = new ArrayList<>(Collections.nCopies(ASYNC_DEPTH, null));
+        final long start = now();
+        try (AsynchronousFileChannel channel = AsynchronousFileChannel.open(path, StandardOpenOption.READ)) {
+            openNanos = now() - start;
+            try {
+                long next = 0;
+                for (int i = 0; i < ASYNC_DEPTH; i++, next += DIRECT_BUFFER_SIZE) {
+                    reads.set(i, channel.read(asyncBuffers[i].clear(), next));
+                }
+                for (int i = 0; ; i = (i + 1) % ASYNC_DEPTH) {
+                    final long slotPosition = next - (long) ASYNC_DEPTH * DIRECT_BUFFER_SIZE;
+                    for (int consumed = 0; consumed < DIRECT_BUFFER_SIZE; ) {
+                        final int read = await(reads.get(i));
+                        if (read < 0) {
+                            return digest();
+                        }
+                        update(asyncBuffers[i].flip());
+                        consumed += read;
+                        asyncBuffers[i].clear().limit(DIRECT_BUFFER_SIZE - consumed);
+                        reads.set(i, consumed < DIRECT_BUFFER_SIZE ? channel.read(asyncBuffers[i], slotPosition + consumed) : null);
+                    }
+                    reads.set(i, channel.read(asyncBuffers[i].clear(), next));
+                    next += DIRECT_BUFFER_SIZE;
+                }
+            } finally {
+                // buffers are reused, so no read may outlive the file
+                for (Future<Integer> read : reads) {
+                    awaitQuietly(read);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            hashFunctions.forEach(HashFunction::reset);
+            throw e;
+        }
+    }
+
+    private static int await(final Future<Integer> read) throws IOException {
+        try {
+            return read.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getMessage());
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException cause ? cause : new IOException(e.getCause());
+        }
+    }
+
+    private static void awaitQuietly(final Future<Integer> read) {
+        try {
+            if (read != null) {
+                await(read);
+            }
+        } catch (IOException ignored) {
+        }
+    }
+
+    private byte[] digest() {
+        final byte[] hash = new byte[hashLength];
+        int offset = 0;
+        for (HashFunction hashFunction : hashFunctions) {
+            final byte[] digest = hashFunction.digest();
+            System.arraycopy(digest, 0, hash, offset, digest.length);
+            offset += digest.length;
+        }
+        return hash;
+    }
+
+    private void update(final ByteBuffer data) {
+        final boolean sampled = isSampled();
+        final long start = sampled ? System.nanoTime() : 0;
+        final int position = data.position();
+        for (HashFunction hashFunction : hashFunctions) {
+            hashFunction.update(data.position(position));
+        }
+        fileBytes += data.limit() - position;
+        if (sampled) {
+            sample(data.limit() - position, start);
+        }
+    }
+
+    private void update(final int length) {
+        final boolean sampled = isSampled();
+        final long start = sampled ? System.nanoTime() : 0;
+        for (HashFunction hashFunction : hashFunctions) {
+            hashFunction.update(buffer, 0, length);
+        }
+        fileBytes += length;
+        if (sampled) {
+            sample(length, start);
+        }
+    }
+
+    // the first update of a file is always timed
+    private boolean isSampled() {
+        return statistics != null && updates++ % DIGEST_SAMPLE_RATE == 0;
+    }
+
+    private void sample(final long bytes, final long start) {
+        sampledNanos += System.nanoTime() - start;
+        sampledBytes += bytes;
+    }
+
+    private void updateWithHeapBuffer(final FileChannel channel) throws IOException {
+        final ByteBuffer heapBuffer = ByteBuffer.wrap(buffer);
+        int readBytes;
+        while ((readBytes = channel.read(heapBuffer.clear())) >= 0) {
+            update(readBytes);
+        }
+    }
+
+    private void updateWithRange(final FileChannel channel, long position, final int length) throws IOException {
+        final ByteBuffer heapBuffer = ByteBuffer.wrap(buffer);
+        for (long end = position + length; position < end; ) {
+            final int readBytes = channel.read(heapBuffer.clear().limit((int) Math.min(buffer.length, end - position)), position);
+            if (readBytes < 0) {
+                break;
+            }
+            position += readBytes;
+            update(readBytes);
+        }
+    }
+
+    private void updateWithDirectBuffer(final FileChannel channel) throws IOException {
+        if (directBuffer == null) {
+            directBuffer = ByteBuffer.allocateDirect(DIRECT_BUFFER_SIZE);
+        }
+        while (channel.read(directBuffer.clear()) >= 0) {
+            update(directBuffer.flip());
+        }
+    }
+
+    // the size is only a hint: the tail appended after mapping is read through the direct buffer
+    private void updateWithMapping(final FileChannel channel, final long size) throws IOException {
+        for (long position = 0; position < size; position += MAPPING_CHUNK_SIZE) {
+            final long chunkSize = Math.min(MAPPING_CHUNK_SIZE, size - position);
+            final MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, position, chunkSize);
+            try {
+                update(mapped);
+            } catch (InternalError e) {
+                // access to pages of a file truncated after mapping
+                throw new IOException("File changed while mapped: " + e.getMessage(), e);
+            }
+        }
+        channel.position(size);
+        updateWithDirectBuffer(channel);
+    }
+
+    /**
+     * The way files are read.
+     */
+    public enum Engine {
+        /** Blocking {@link FileChannel} reads or mapping, chosen by file size. */
+        CHANNEL,
+        /** {@link AsynchronousFileChannel} with {@value ASYNC_DEPTH} reads in flight, for high-latency file systems. */
+        ASYNC,
+        /** {@link InputStream} reads to the heap buffer regardless of size. */
+        STREAM,
+        /** {@link FileChannel} reads to the heap buffer regardless of size. */
+        HEAP,
+        /** {@link FileChannel} reads to the direct buffer regardless of size. */
+        DIRECT,
+        /** Mapping regardless of size. */
+        MAPPED
+    }
 }
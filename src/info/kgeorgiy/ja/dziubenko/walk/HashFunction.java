@@ -0,0 +1,113 @@
+package info.kgeorgiy.ja.dziubenko.walk;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.function.Supplier;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.CRC32C;
+import java.util.zip.Checksum;
+
+/**
+ * Common view of {@link MessageDigest message digests} and {@link Checksum checksums},
+ * so that {@link HashCalculator} can feed one buffer to several of them.
+ */
+public interface HashFunction {
+    /** Name of the algorithm. */
+    String name();
+
+    /** Length of the result in bytes. */
+    int length();
+
+    void update(byte[] bytes, int offset, int length);
+
+    /** Consumes remaining bytes of the buffer. */
+    void update(ByteBuffer buffer);
+
+    /** Completes calculation and resets the function. */
+    byte[] digest();
+
+    void reset();
+
+    /**
+     * Creates function by name: {@code CRC32C}, {@code CRC32}, {@code Adler32}
+     * or any {@link MessageDigest} algorithm.
+     */
+    static HashFunction of(final String algorithm) throws NoSuchAlgorithmException {
+        return switch (algorithm) {
+            case "CRC32C" -> new ChecksumFunction(algorithm, CRC32C::new);
+            case "CRC32" -> new ChecksumFunction(algorithm, CRC32::new);
+            case "Adler32" -> new ChecksumFunction(algorithm, Adler32::new);
+            default -> new DigestFunction(MessageDigest.getInstance(algorithm));
+        };
+    }
+
+    record DigestFunction(MessageDigest messageDigest) implements HashFunction {
+        @Override
+        public String name() {
+            return messageDigest.getAlgorithm();
+        }
+
+        @Override
+        public int length() {
+            return messageDigest.getDigestLength();
+        }
+
+        @Override
+        public void update(final byte[] bytes, final int offset, final int length) {
+            messageDigest.update(bytes, offset, length);
+        }
+
+        @Override
+        public void update(final ByteBuffer buffer) {
+            messageDigest.update(buffer);
+        }
+
+        @Override
+        public byte[] digest() {
+            return messageDigest.digest();
+        }
+
+        @Override
+        public void reset() {
+            messageDigest.reset();
+        }
+    }
+
+    /**
+     * 32-bit checksum, whose value is written in big-endian order.
+     */
+    record ChecksumFunction(String name, Checksum checksum) implements HashFunction {
+        private ChecksumFunction(final String name, final Supplier<Checksum> checksum) {
+            this(name, checksum.get());
+        }
+
+        @Override
+        public int length() {
+            return Integer.BYTES;
+        }
+
+        @Override
+        public void update(final byte[] bytes, final int offset, final int length) {
+            checksum.update(bytes, offset, length);
+        }
+
+        @Override
+        public void update(final ByteBuffer buffer) {
+            checksum.update(buffer);
+        }
+
+        @Override
+        public byte[] digest() {
+            final int value = (int) checksum.getValue();
+            checksum.reset();
+            return ByteBuffer.allocate(Integer.BYTES).putInt(value).array();
+        }
+
+        @Override
+        public void reset() {
+            checksum.reset();
+        }
+    }
+}
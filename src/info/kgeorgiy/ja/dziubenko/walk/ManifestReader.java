@@ -0,0 +1,133 @@
+package info.kgeorgiy.ja.dziubenko.walk;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads {@code hash... name} lines of a {@link Walk} manifest.
+ * <p>
+ * Lines are scanned in a reusable byte buffer: hash columns are decoded from hex directly
+ * into raw digests, and only file names become strings.
+ */
+public class ManifestReader implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final InputStream in;
+    private final int[] columnLengths;
+    private final int hashLength;
+    private byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private long lineNumber;
+
+    /**
+     * Constructs reader.
+     *
+     * @param in            manifest in UTF-8.
+     * @param columnLengths lengths of raw digests of the hash columns.
+     */
+    public ManifestReader(final InputStream in, final int[] columnLengths) {
+        this.in = in;
+        this.columnLengths = columnLengths.clone();
+        hashLength = Arrays.stream(columnLengths).sum();
+    }
+
+    /**
+     * Returns next entry, or {@code null} at the end of the manifest.
+     *
+     * @throws IOException if the manifest can't be read or a line is malformed.
+     */
+    public Entry next() throws IOException {
+        while (true) {
+            int end;
+            while ((end = findLineEnd()) < 0) {
+                if (!fill()) {
+                    if (position == limit) {
+                        return null;
+                    }
+                    end = limit;
+                    break;
+                }
+            }
+            lineNumber++;
+            final int from = position;
+            final int to = end > from && buffer[end - 1] == '\r' ? end - 1 : end;
+            position = Math.min(end + 1, limit);
+            if (to > from) {
+                return parse(from, to);
+            }
+        }
+    }
+
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    private int findLineEnd() {
+        for (int i = position; i < limit; i++) {
+            if (buffer[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // moves unread bytes to the beginning of the buffer, growing it for long lines
+    private boolean fill() throws IOException {
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= position;
+            position = 0;
+        } else if (limit == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length << 1);
+        }
+        final int read = in.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            return false;
+        }
+        limit += read;
+        return true;
+    }
+
+    private Entry parse(final int from, final int to) throws IOException {
+        final byte[] hash = new byte[hashLength];
+        int i = from;
+        int offset = 0;
+        for (int columnLength : columnLengths) {
+            if (to - i < (columnLength << 1) + 1 || buffer[i + (columnLength << 1)] != ' ') {
+                throw malformed();
+            }
+            for (int j = 0; j < columnLength; j++, i += 2) {
+                final int high = Character.digit(buffer[i], 16);
+                final int low = Character.digit(buffer[i + 1], 16);
+                if (high < 0 || low < 0) {
+                    throw malformed();
+                }
+                hash[offset++] = (byte) ((high << 4) | low);
+            }
+            i++;
+        }
+        return new Entry(new String(buffer, i, to - i, StandardCharsets.UTF_8), hash);
+    }
+
+    private IOException malformed() {
+        return new IOException("Malformed manifest line " + lineNumber);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * Manifest line.
+     *
+     * @param fileName name of the file.
+     * @param hash     concatenated raw digests.
+     */
+    public record Entry(String fileName, byte[] hash) {
+    }
+}
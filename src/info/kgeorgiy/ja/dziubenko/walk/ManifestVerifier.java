@@ -0,0 +1,119 @@
+package info.kgeorgiy.ja.dziubenko.walk;
+
+import info.kgeorgiy.ja.dziubenko.walk.exceptions.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Re-hashes files of a {@link Walk} manifest in parallel and reports
+ * {@code STATUS name} lines for files, which don't match it.
+ * <p>
+ * With a {@link HashCache} the files, whose stamps are unchanged since they were cached,
+ * are compared by cached digests without reading.
+ */
+public class ManifestVerifier {
+    private static final int PENDING_PER_THREAD = 64;
+
+    private final int threads;
+    private final ThreadLocal<HashCalculator> hashCalculators;
+
+    /**
+     * Constructs verifier.
+     *
+     * @param threads         number of hash workers.
+     * @param hashCalculators calculators of the workers.
+     */
+    public ManifestVerifier(final int threads, final ThreadLocal<HashCalculator> hashCalculators) {
+        this.threads = threads;
+        this.hashCalculators = hashCalculators;
+    }
+
+    /**
+     * Verifies all entries of the manifest and writes the failed ones in manifest order.
+     *
+     * @return number of entries by status.
+     */
+    public Map<Status, Integer> verify(final ManifestReader reader, final BufferedWriter writer) throws WalkException {
+        final Map<Status, Integer> statistics = new EnumMap<>(Status.class);
+        final int maxPending = PENDING_PER_THREAD * threads;
+        final Deque<PendingStatus> pending = new ArrayDeque<>(maxPending);
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            ManifestReader.Entry entry;
+            while ((entry = nextEntry(reader)) != null) {
+                if (pending.size() == maxPending) {
+                    report(pending.poll(), writer, statistics);
+                }
+                final ManifestReader.Entry task = entry;
+                pending.add(new PendingStatus(entry.fileName(), executor.submit(() -> verify(task))));
+            }
+            while (!pending.isEmpty()) {
+                report(pending.poll(), writer, statistics);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return statistics;
+    }
+
+    private Status verify(final ManifestReader.Entry entry) {
+        try {
+            final byte[] hash = hashCalculators.get().calculateDigest(Path.of(entry.fileName()));
+            return Arrays.equals(hash, entry.hash()) ? Status.OK : Status.MISMATCH;
+        } catch (NoSuchFileException e) {
+            return Status.MISSING;
+        } catch (IOException | SecurityException | InvalidPathException e) {
+            return Status.UNREADABLE;
+        }
+    }
+
+    private static ManifestReader.Entry nextEntry(final ManifestReader reader) throws ReadingWalkException {
+        try {
+            return reader.next();
+        } catch (IOException e) {
+            throw new ReadingWalkException("On reading error: " + e.getMessage());
+        }
+    }
+
+    private static void report(
+            final PendingStatus pendingStatus,
+            final BufferedWriter writer,
+            final Map<Status, Integer> statistics
+    ) throws WalkException {
+        try {
+            final Status status = pendingStatus.status().get();
+            statistics.merge(status, 1, Integer::sum);
+            if (status != Status.OK) {
+                writer.write(status + " " + pendingStatus.fileName());
+                writer.newLine();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HashingWalkException("Interrupted while waiting for " + pendingStatus.fileName());
+        } catch (ExecutionException e) {
+            throw new HashingWalkException(e.getCause().getMessage());
+        } catch (IOException e) {
+            throw new WritingWalkException("On writing error: " + e.getMessage());
+        }
+    }
+
+    public enum Status {
+        OK, MISMATCH, MISSING, UNREADABLE
+    }
+
+    private record PendingStatus(String fileName, Future<Status> status) {
+    }
+}
@@ -0,0 +1,212 @@
+package info.kgeorgiy.ja.dziubenko.walk;
+
+import info.kgeorgiy.ja.dziubenko.walk.exceptions.*;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * {@link Walk} which expands directories of the input list recursively.
+ * <p>
+ * Directories are traversed by fork-join tasks: subdirectories are forked,
+ * and files are forked in batches of {@value FILE_BATCH} as soon as they are listed,
+ * so files of a single directory are hashed by all workers.
+ * Output lines of different files may be written in any order.
+ */
+public class RecursiveWalk {
+    private static final int FILE_BATCH = 64;
+
+    public static void main(String[] args) {
+        try {
+            run(args);
+        } catch (WalkException e) {
+            Walk.printErr(e.getMessage());
+        }
+    }
+
+    private static void run(String[] args) throws WalkException {
+        final WalkArguments arguments = WalkArguments.parse(args, WalkArguments.HASHING_OPTIONS);
+
+        final int threads = arguments.threads();
+        final Path cacheFile = arguments.optionalPath(WalkArguments.CACHE);
+        final List<String> algorithms = arguments.algorithms(Walk.SHA_256);
+
+        Walk.createHashFunctions(algorithms);
+        final HashCache cache = Walk.loadCache(cacheFile, algorithms);
+        final WalkStatistics statistics = Walk.startStatistics(arguments);
+        final ThreadLocal<HashCalculator> hashCalculators =
+                Walk.threadLocalCalculators(algorithms, cache, arguments.engine(), statistics);
+
+        try (BufferedReader reader = Walk.newReader(arguments)) {
+            try (BufferedWriter writer = Walk.newWriter(arguments)) {
+                try {
+                    walk(threads, hashCalculators, reader, writer);
+                } finally {
+                    Walk.finishStatistics(statistics);
+                }
+                writer.flush();
+            } catch (IOException | SecurityException e) {
+                throw new WritingWalkException("Can't write to output file: " + e.getMessage());
+            }
+        } catch (IOException | SecurityException e) {
+            throw new ReadingWalkException("Can't read from input file: " + e.getMessage());
+        }
+
+        if (cache != null) {
+            Walk.saveCache(cache, cacheFile);
+        }
+    }
+
+    private static void walk(
+            final int threads,
+            final ThreadLocal<HashCalculator> hashCalculators,
+            final BufferedReader reader,
+            final BufferedWriter writer
+    ) throws WalkException {
+        final ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            final List<ForkJoinTask<Void>> roots = new ArrayList<>();
+            String fileName;
+            while ((fileName = Walk.readFileName(reader)) != null) {
+                roots.add(pool.submit(new WalkTask(fileName, null, hashCalculators, writer)));
+            }
+            for (ForkJoinTask<Void> root : roots) {
+                root.join();
+            }
+        } catch (UncheckedIOException e) {
+            throw new WritingWalkException("On writing error: " + e.getMessage());
+        } catch (RuntimeException e) {
+            throw new HashingWalkException(e.getMessage());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static class WalkTask extends RecursiveAction {
+        private final String fileName;
+        // null for entries of the input list, which are resolved following links
+        private final Path path;
+        private final ThreadLocal<HashCalculator> hashCalculators;
+        private final BufferedWriter writer;
+
+        private WalkTask(
+                final String fileName,
+                final Path path,
+                final ThreadLocal<HashCalculator> hashCalculators,
+                final BufferedWriter writer
+        ) {
+            this.fileName = fileName;
+            this.path = path;
+            this.hashCalculators = hashCalculators;
+            this.writer = writer;
+        }
+
+        @Override
+        protected void compute() {
+            final Path directory = getDirectory();
+            if (directory == null) {
+                hash(hashCalculators, writer, fileName);
+                return;
+            }
+            final List<RecursiveAction> subtasks = new ArrayList<>();
+            List<String> batch = new ArrayList<>();
+            boolean listed = false;
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+                for (Path entry : entries) {
+                    listed = true;
+                    if (Files.isDirectory(entry, LinkOption.NOFOLLOW_LINKS)) {
+                        fork(new WalkTask(entry.toString(), entry, hashCalculators, writer), subtasks);
+                    } else {
+                        batch.add(entry.toString());
+                        if (batch.size() == FILE_BATCH) {
+                            fork(new HashTask(batch, hashCalculators, writer), subtasks);
+                            batch = new ArrayList<>();
+                        }
+                    }
+                }
+            } catch (IOException | DirectoryIteratorException | SecurityException e) {
+                // entries listed before the error are hashed, otherwise the directory is reported as failed
+                if (!listed) {
+                    hash(hashCalculators, writer, fileName);
+                }
+            }
+            // the last batch is hashed by this worker
+            for (String name : batch) {
+                hash(hashCalculators, writer, name);
+            }
+            for (RecursiveAction subtask : subtasks) {
+                subtask.join();
+            }
+        }
+
+        private static void fork(final RecursiveAction subtask, final List<RecursiveAction> subtasks) {
+            subtask.fork();
+            subtasks.add(subtask);
+        }
+
+        private Path getDirectory() {
+            try {
+                if (path != null) {
+                    return path;
+                }
+                final Path root = Path.of(fileName);
+                return Files.isDirectory(root) ? root : null;
+            } catch (InvalidPathException | SecurityException e) {
+                return null;
+            }
+        }
+
+    }
+
+    private static class HashTask extends RecursiveAction {
+        private final List<String> fileNames;
+        private final ThreadLocal<HashCalculator> hashCalculators;
+        private final BufferedWriter writer;
+
+        private HashTask(
+                final List<String> fileNames,
+                final ThreadLocal<HashCalculator> hashCalculators,
+                final BufferedWriter writer
+        ) {
+            this.fileNames = fileNames;
+            this.hashCalculators = hashCalculators;
+            this.writer = writer;
+        }
+
+        @Override
+        protected void compute() {
+            for (String name : fileNames) {
+                hash(hashCalculators, writer, name);
+            }
+        }
+    }
+
+    private static void hash(
+            final ThreadLocal<HashCalculator> hashCalculators,
+            final BufferedWriter writer,
+            final String name
+    ) {
+        final String fileHash = hashCalculators.get().calculateFileHash(name);
+        try {
+            synchronized (writer) {
+                writer.write(fileHash + " " + name);
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
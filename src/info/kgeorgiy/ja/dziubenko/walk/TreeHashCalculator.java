@@ -0,0 +1,174 @@
+package info.kgeorgiy.ja.dziubenko.walk;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Calculates Merkle tree hashes of files.
+ * <p>
+ * A file is split into chunks of fixed size, which are read with positional reads and hashed
+ * in parallel. Leaves are {@code H(0x00 || chunk)}, inner nodes are {@code H(0x01 || left || right)},
+ * and the left subtree of {@code n} leaves holds the largest power of two less than {@code n} leaves.
+ * An empty file has a single empty leaf.
+ * <p>
+ * Chunk hashes are kept for writing only for files of less than {@value MAX_LEAVES} chunks,
+ * and larger files get the error hash if chunk hashes are written.
+ * <p>
+ * Instances are thread-safe.
+ */
+public class TreeHashCalculator implements AutoCloseable {
+    private static final byte[] LEAF = {0};
+    private static final byte[] NODE = {1};
+    private static final int READ_BUFFER_SIZE = 1 << 20;
+    private static final int MAX_LEAVES = Integer.MAX_VALUE - 8;
+
+    private final long chunkSize;
+    private final BufferedWriter chunkWriter;
+    private final String errorHash;
+    private final ForkJoinPool pool;
+    private final ThreadLocal<HashFunction> hashFunctions;
+    private final ThreadLocal<ByteBuffer> buffers;
+
+    /**
+     * Constructs calculator.
+     *
+     * @param algorithm   name of the {@link HashFunction hash function}.
+     * @param chunkSize   size of leaf chunks in bytes.
+     * @param threads     number of threads hashing chunks.
+     * @param chunkWriter writer of {@code hash index name} lines for every chunk, or {@code null}.
+     * @throws NoSuchAlgorithmException if the algorithm is not available.
+     */
+    public TreeHashCalculator(
+            final String algorithm,
+            final long chunkSize,
+            final int threads,
+            final BufferedWriter chunkWriter
+    ) throws NoSuchAlgorithmException {
+        this.chunkSize = chunkSize;
+        this.chunkWriter = chunkWriter;
+        errorHash = "0".repeat(HashFunction.of(algorithm).length() << 1);
+        pool = new ForkJoinPool(threads);
+        hashFunctions = ThreadLocal.withInitial(() -> {
+            try {
+                return HashFunction.of(algorithm);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e.getMessage(), e);
+            }
+        });
+        buffers = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect((int) Math.min(chunkSize, READ_BUFFER_SIZE)));
+    }
+
+    public String calculateFileHash(final String fileName) {
+        try (FileChannel channel = FileChannel.open(Path.of(fileName), StandardOpenOption.READ)) {
+            final long size = channel.size();
+            final long chunks = Math.max(1, size / chunkSize + (size % chunkSize == 0 ? 0 : 1));
+            if (chunkWriter != null && chunks >= MAX_LEAVES) {
+                return errorHash;
+            }
+            final byte[][] leaves = chunkWriter == null ? null : new byte[(int) chunks][];
+            final byte[] root = pool.invoke(new SubtreeTask(channel, size, 0, chunks, leaves));
+            if (leaves != null) {
+                writeChunkHashes(fileName, leaves);
+            }
+            return HexFormat.of().formatHex(root);
+        } catch (IOException | SecurityException | InvalidPathException | ChunkReadException e) {
+            return errorHash;
+        }
+    }
+
+    private void writeChunkHashes(final String fileName, final byte[][] leaves) {
+        final HexFormat hexFormat = HexFormat.of();
+        try {
+            synchronized (chunkWriter) {
+                for (int i = 0; i < leaves.length; i++) {
+                    chunkWriter.write(hexFormat.formatHex(leaves[i]) + " " + i + " " + fileName);
+                    chunkWriter.newLine();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+
+    private class SubtreeTask extends RecursiveTask<byte[]> {
+        private final FileChannel channel;
+        private final long size;
+        private final long from;
+        private final long to;
+        private final byte[][] leaves;
+
+        private SubtreeTask(final FileChannel channel, final long size, final long from, final long to, final byte[][] leaves) {
+            this.channel = channel;
+            this.size = size;
+            this.from = from;
+            this.to = to;
+            this.leaves = leaves;
+        }
+
+        @Override
+        protected byte[] compute() {
+            if (to - from == 1) {
+                final byte[] leaf = hashChunk(from);
+                if (leaves != null) {
+                    leaves[(int) from] = leaf;
+                }
+                return leaf;
+            }
+            final long split = from + Long.highestOneBit(to - from - 1);
+            final SubtreeTask left = new SubtreeTask(channel, size, from, split, leaves);
+            left.fork();
+            final byte[] right = new SubtreeTask(channel, size, split, to, leaves).compute();
+            // join may run other tasks of this thread, so the thread's function is taken after it
+            final byte[] leftHash = left.join();
+            final HashFunction hashFunction = hashFunctions.get();
+            hashFunction.update(NODE, 0, NODE.length);
+            hashFunction.update(leftHash, 0, leftHash.length);
+            hashFunction.update(right, 0, right.length);
+            return hashFunction.digest();
+        }
+
+        private byte[] hashChunk(final long index) {
+            final HashFunction hashFunction = hashFunctions.get();
+            final ByteBuffer buffer = buffers.get();
+            final long start = index * chunkSize;
+            final long end = start + Math.min(chunkSize, size - start);
+            hashFunction.update(LEAF, 0, LEAF.length);
+            try {
+                for (long position = start; position < end; ) {
+                    buffer.clear().limit((int) Math.min(buffer.capacity(), end - position));
+                    final int read = channel.read(buffer, position);
+                    if (read < 0) {
+                        break;
+                    }
+                    position += read;
+                    hashFunction.update(buffer.flip());
+                }
+            } catch (IOException e) {
+                hashFunction.reset();
+                throw new ChunkReadException(e);
+            }
+            return hashFunction.digest();
+        }
+    }
+
+    private static class ChunkReadException extends UncheckedIOException {
+        private ChunkReadException(final IOException cause) {
+            super(cause);
+        }
+    }
+}
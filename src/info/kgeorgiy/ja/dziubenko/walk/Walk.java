@@ -5,20 +5,25 @@ import info.kgeorgiy.ja.dziubenko.walk.exceptions.*;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
-import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
-import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import javax.management.JMException;
 
 
 public class Walk {
 
-    private static final String SHA_256 = "SHA-256";
+    static final String SHA_256 = "SHA-256";
     public static final int BUFFER_SIZE = 1024;
 
-    private static void printErr(final String message) {
+    static void printErr(final String message) {
         System.err.println("VERIFIABLE ERROR => " + message);
     }
 
@@ -31,28 +36,97 @@ public class Walk {
     }
 
     private static void run(String[] args) throws WalkException {
-        checkArgs(args);
+        final WalkArguments arguments = WalkArguments.parse(args);
 
-        final Path in = getPathFromArgs(args[0], "first");
-        final Path out = getPathFromArgs(args[1], "second");
+        final int threads = arguments.threads();
+        final Path cacheFile = arguments.optionalPath(WalkArguments.CACHE);
+        final List<String> algorithms = arguments.algorithms(SHA_256);
+        final long treeChunk = arguments.optionalSize(WalkArguments.TREE_CHUNK);
 
-        final MessageDigest messageDigest;
+        final List<HashFunction> hashFunctions = createHashFunctions(algorithms);
+        if (treeChunk == 0 && arguments.has(WalkArguments.CHUNK_HASHES)) {
+            throw new ArgumentsWalkException(WalkArguments.CHUNK_HASHES + " requires " + WalkArguments.TREE_CHUNK);
+        }
+        if (treeChunk > 0) {
+            if (arguments.has(WalkArguments.VERIFY)) {
+                throw new ArgumentsWalkException(WalkArguments.VERIFY + " can't be combined with " + WalkArguments.TREE_CHUNK);
+            }
+            runTreeHash(arguments, threads, algorithms, treeChunk);
+            return;
+        }
+
+        final HashCache cache = loadCache(cacheFile, algorithms);
+        final WalkStatistics statistics = startStatistics(arguments);
+        final ThreadLocal<HashCalculator> hashCalculators =
+                threadLocalCalculators(algorithms, cache, arguments.engine(), statistics);
         try {
-            messageDigest = MessageDigest.getInstance(SHA_256);
-        } catch (NoSuchAlgorithmException e) {
-            throw new ShaAlgorithmWalkException(e.getMessage());
+            if (arguments.has(WalkArguments.VERIFY)) {
+                verifyManifest(arguments, hashFunctions, new ManifestVerifier(threads, hashCalculators));
+            } else {
+                hashFiles(arguments, new WalkPipeline(
+                        threads,
+                        name -> hashCalculators.get().calculateFileHash(name),
+                        statistics
+                ));
+            }
+        } finally {
+            finishStatistics(statistics);
         }
 
-        final HashCalculator hashCalculator = new HashCalculator(messageDigest, BUFFER_SIZE);
+        if (cache != null) {
+            saveCache(cache, cacheFile);
+        }
+    }
 
-        try (BufferedReader reader = Files.newBufferedReader(in, StandardCharsets.UTF_8)) {
-            createParentDirectory(out);
-            try (BufferedWriter writer = Files.newBufferedWriter(out, StandardCharsets.UTF_8)) {
-                String fileName;
-                while ((fileName = readFileName(reader)) != null) {
-                    String fileHash = hashCalculator.calculateFileHash(fileName);
-                    writeFileData(fileName, fileHash, writer);
-                }
+    private static void runTreeHash(
+            final WalkArguments arguments,
+            final int threads,
+            final List<String> algorithms,
+            final long chunkSize
+    ) throws WalkException {
+        if (algorithms.size() != 1) {
+            throw new ArgumentsWalkException(WalkArguments.TREE_CHUNK + " supports a single digest");
+        }
+        for (String option : List.of(WalkArguments.CACHE, WalkArguments.ENGINE, WalkArguments.STATISTICS)) {
+            if (arguments.has(option)) {
+                throw new ArgumentsWalkException(WalkArguments.TREE_CHUNK + " can't be combined with " + option);
+            }
+        }
+        final Path chunkHashes = arguments.optionalPath(WalkArguments.CHUNK_HASHES);
+        try (BufferedWriter chunkWriter = chunkHashes == null ? null : newWriter(chunkHashes)) {
+            try (TreeHashCalculator calculator = new TreeHashCalculator(algorithms.get(0), chunkSize, threads, chunkWriter)) {
+                hashFiles(arguments, new WalkPipeline(threads, calculator::calculateFileHash));
+            } catch (NoSuchAlgorithmException e) {
+                throw new AlgorithmWalkException(e.getMessage());
+            }
+        } catch (IOException | SecurityException e) {
+            throw new WritingWalkException("Can't write chunk hashes: " + e.getMessage());
+        }
+    }
+
+    private static void hashFiles(final WalkArguments arguments, final WalkPipeline pipeline) throws WalkException {
+        try (BufferedReader reader = newReader(arguments)) {
+            try (BufferedWriter writer = newWriter(arguments)) {
+                pipeline.run(reader, writer);
+                writer.flush();
+            } catch (IOException | SecurityException e) {
+                throw new WritingWalkException("Can't write to output file: " + e.getMessage());
+            }
+        } catch (IOException | SecurityException e) {
+            throw new ReadingWalkException("Can't read from input file: " + e.getMessage());
+        }
+    }
+
+    private static void verifyManifest(
+            final WalkArguments arguments,
+            final List<HashFunction> hashFunctions,
+            final ManifestVerifier verifier
+    ) throws WalkException {
+        final int[] columnLengths = hashFunctions.stream().mapToInt(HashFunction::length).toArray();
+        final Map<ManifestVerifier.Status, Integer> statistics;
+        try (ManifestReader reader = new ManifestReader(newInputStream(arguments), columnLengths)) {
+            try (BufferedWriter writer = newWriter(arguments)) {
+                statistics = verifier.verify(reader, writer);
                 writer.flush();
             } catch (IOException | SecurityException e) {
                 throw new WritingWalkException("Can't write to output file: " + e.getMessage());
@@ -60,30 +134,98 @@ public class Walk {
         } catch (IOException | SecurityException e) {
             throw new ReadingWalkException("Can't read from input file: " + e.getMessage());
         }
+        System.err.println("Verified: " + statistics);
+    }
+
+    static InputStream newInputStream(final WalkArguments arguments) throws IOException, PathWalkException {
+        return arguments.isStandardInput() ? System.in : Files.newInputStream(arguments.input());
+    }
+
+    static BufferedReader newReader(final WalkArguments arguments) throws IOException, PathWalkException {
+        return new BufferedReader(new InputStreamReader(newInputStream(arguments), StandardCharsets.UTF_8));
+    }
+
+    static BufferedWriter newWriter(final WalkArguments arguments) throws IOException, PathWalkException {
+        if (arguments.isStandardOutput()) {
+            return new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        }
+        return newWriter(arguments.output());
     }
 
-    private static void checkArgs(final String[] args) throws ArgumentsWalkException {
-        if (args == null || args.length != 2) {
-            throw new ArgumentsWalkException("Expected two file names");
+    static BufferedWriter newWriter(final Path out) throws IOException {
+        createParentDirectory(out);
+        return Files.newBufferedWriter(out, StandardCharsets.UTF_8);
+    }
+
+    static HashCache loadCache(final Path cacheFile, final List<String> algorithms) {
+        return cacheFile == null ? null : HashCache.load(cacheFile, String.join(",", algorithms));
+    }
+
+    static void saveCache(final HashCache cache, final Path cacheFile) throws WritingWalkException {
+        try {
+            cache.save();
+        } catch (IOException | SecurityException e) {
+            throw new WritingWalkException("Can't write hash cache " + cacheFile + ": " + e.getMessage());
         }
-        if (args[0] == null || args[0].isBlank()) {
-            throw new ArgumentsWalkException("First argument can't be empty");
+        System.err.println("Hash cache: " + cache.hits() + " hits, " + cache.misses() + " misses");
+    }
+
+    static List<HashFunction> createHashFunctions(final List<String> algorithms) throws AlgorithmWalkException {
+        final List<HashFunction> hashFunctions = new ArrayList<>(algorithms.size());
+        for (String algorithm : algorithms) {
+            try {
+                hashFunctions.add(HashFunction.of(algorithm));
+            } catch (NoSuchAlgorithmException e) {
+                throw new AlgorithmWalkException(e.getMessage());
+            }
+        }
+        return hashFunctions;
+    }
+
+    // the algorithms have to be checked by createHashFunctions beforehand
+    static ThreadLocal<HashCalculator> threadLocalCalculators(
+            final List<String> algorithms,
+            final HashCache cache,
+            final HashCalculator.Engine engine,
+            final WalkStatistics statistics
+    ) {
+        return ThreadLocal.withInitial(() -> {
+            try {
+                return new HashCalculator(createHashFunctions(algorithms), BUFFER_SIZE, cache, engine, statistics);
+            } catch (AlgorithmWalkException e) {
+                throw new IllegalStateException(e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * Returns statistics registered as MBean if {@value WalkArguments#STATISTICS} flag is given, or {@code null}.
+     */
+    static WalkStatistics startStatistics(final WalkArguments arguments) {
+        if (!arguments.has(WalkArguments.STATISTICS)) {
+            return null;
         }
-        if (args[1] == null || args[1].isBlank()) {
-            throw new ArgumentsWalkException("Second argument can't be empty");
+        final WalkStatistics statistics = new WalkStatistics();
+        try {
+            statistics.register();
+        } catch (JMException e) {
+            System.err.println("Can't register statistics MBean: " + e.getMessage());
         }
+        return statistics;
     }
 
-    private static Path getPathFromArgs(final String fileName, final String argNumber) throws PathWalkException {
+    static void finishStatistics(final WalkStatistics statistics) {
+        if (statistics == null) {
+            return;
+        }
         try {
-            return Path.of(fileName);
-        } catch (InvalidPathException e) {
-            throw new PathWalkException(
-                    "Invalid path name of " + argNumber + " argument: " + e.getMessage());
+            statistics.unregister();
+        } catch (JMException ignored) {
         }
+        System.err.println(statistics.summary());
     }
 
-    private static void createParentDirectory(final Path out) {
+    static void createParentDirectory(final Path out) {
         final Path parent = out.getParent();
         if (parent != null) {
             try {
@@ -93,7 +235,7 @@ public class Walk {
         }
     }
 
-    private static String readFileName(final BufferedReader reader) throws ReadingWalkException {
+    static String readFileName(final BufferedReader reader) throws ReadingWalkException {
         try {
             return reader.readLine();
         } catch (IOException e) {
@@ -101,7 +243,7 @@ public class Walk {
         }
     }
 
-    private static void writeFileData(
+    static void writeFileData(
             final String fileName, final String fileSHA, final BufferedWriter writer) throws WritingWalkException {
         try {
             writer.write(fileSHA + " " + fileName);
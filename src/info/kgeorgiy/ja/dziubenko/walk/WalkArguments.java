@@ -0,0 +1,187 @@
+package info.kgeorgiy.ja.dziubenko.walk;
+
+import info.kgeorgiy.ja.dziubenko.walk.exceptions.ArgumentsWalkException;
+import info.kgeorgiy.ja.dziubenko.walk.exceptions.PathWalkException;
+
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Command line of {@link Walk}: {@code input output [threads] [--option value | --flag]...}.
+ * Input and output named {@value STANDARD_STREAM} are standard input and output.
+ */
+public class WalkArguments {
+    public static final String STANDARD_STREAM = "-";
+    public static final String CACHE = "--cache";
+    public static final String DIGESTS = "--digests";
+    public static final String TREE_CHUNK = "--tree-chunk";
+    public static final String CHUNK_HASHES = "--chunk-hashes";
+    public static final String ENGINE = "--engine";
+
+    public static final String VERIFY = "--verify";
+    public static final String STATISTICS = "--statistics";
+
+    private static final Set<String> OPTIONS = Set.of(CACHE, DIGESTS, TREE_CHUNK, CHUNK_HASHES, ENGINE);
+    private static final Set<String> FLAGS = Set.of(VERIFY, STATISTICS);
+
+    /**
+     * Options and flags of walks, which hash every file with {@link HashCalculator}.
+     */
+    public static final Set<String> HASHING_OPTIONS = Set.of(CACHE, DIGESTS, ENGINE, STATISTICS);
+
+    private final List<String> positional;
+    private final Map<String, String> options;
+
+    private WalkArguments(final List<String> positional, final Map<String, String> options) {
+        this.positional = positional;
+        this.options = options;
+    }
+
+    public static WalkArguments parse(final String[] args) throws ArgumentsWalkException {
+        return parse(args, null);
+    }
+
+    /**
+     * Parses command line, which may contain only the supported options and flags.
+     *
+     * @param supported supported options and flags, or {@code null} if all of them are.
+     */
+    public static WalkArguments parse(final String[] args, final Set<String> supported) throws ArgumentsWalkException {
+        if (args == null) {
+            throw new ArgumentsWalkException("Expected two file names");
+        }
+        final List<String> positional = new ArrayList<>();
+        final Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i] == null || args[i].isBlank()) {
+                throw new ArgumentsWalkException("Argument " + (i + 1) + " can't be empty");
+            }
+            if (!args[i].startsWith("--")) {
+                positional.add(args[i]);
+                continue;
+            }
+            if (supported != null && (FLAGS.contains(args[i]) || OPTIONS.contains(args[i])) && !supported.contains(args[i])) {
+                throw new ArgumentsWalkException("Option " + args[i] + " is not supported here");
+            }
+            if (FLAGS.contains(args[i])) {
+                options.put(args[i], "");
+                continue;
+            }
+            if (!OPTIONS.contains(args[i])) {
+                throw new ArgumentsWalkException("Unknown option " + args[i]);
+            }
+            if (i + 1 == args.length || args[i + 1] == null || args[i + 1].isBlank()) {
+                throw new ArgumentsWalkException("Expected value of option " + args[i]);
+            }
+            options.put(args[i], args[++i]);
+        }
+        if (positional.size() < 2 || positional.size() > 3) {
+            throw new ArgumentsWalkException("Expected two file names and optional number of threads");
+        }
+        return new WalkArguments(positional, options);
+    }
+
+    public boolean isStandardInput() {
+        return positional.get(0).equals(STANDARD_STREAM);
+    }
+
+    public boolean isStandardOutput() {
+        return positional.get(1).equals(STANDARD_STREAM);
+    }
+
+    public Path input() throws PathWalkException {
+        return getPath(positional.get(0), "first");
+    }
+
+    public Path output() throws PathWalkException {
+        return getPath(positional.get(1), "second");
+    }
+
+    public int threads() throws ArgumentsWalkException {
+        if (positional.size() < 3) {
+            return 1;
+        }
+        try {
+            final int threads = Integer.parseInt(positional.get(2));
+            if (threads < 1) {
+                throw new ArgumentsWalkException("Number of threads must be positive, actual=" + threads);
+            }
+            return threads;
+        } catch (NumberFormatException e) {
+            throw new ArgumentsWalkException("Number of threads is not an integer: " + positional.get(2));
+        }
+    }
+
+    /**
+     * Returns whether the option or flag is given.
+     */
+    public boolean has(final String option) {
+        return options.containsKey(option);
+    }
+
+    /**
+     * Returns comma-separated hash algorithms of {@value DIGESTS} option, or the default one.
+     */
+    public List<String> algorithms(final String defaultAlgorithm) {
+        final String value = options.get(DIGESTS);
+        return value == null ? List.of(defaultAlgorithm) : List.of(value.split(","));
+    }
+
+    /**
+     * Returns {@link HashCalculator.Engine engine} named by {@value ENGINE} option in any case,
+     * or {@link HashCalculator.Engine#CHANNEL} if option is absent.
+     */
+    public HashCalculator.Engine engine() throws ArgumentsWalkException {
+        final String value = options.get(ENGINE);
+        if (value == null) {
+            return HashCalculator.Engine.CHANNEL;
+        }
+        try {
+            return HashCalculator.Engine.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ArgumentsWalkException("Unknown engine " + value);
+        }
+    }
+
+    /**
+     * Returns positive size in bytes given by option, or {@code 0} if option is absent.
+     */
+    public long optionalSize(final String option) throws ArgumentsWalkException {
+        final String value = options.get(option);
+        if (value == null) {
+            return 0;
+        }
+        try {
+            final long size = Long.parseLong(value);
+            if (size < 1) {
+                throw new ArgumentsWalkException("Value of " + option + " must be positive, actual=" + size);
+            }
+            return size;
+        } catch (NumberFormatException e) {
+            throw new ArgumentsWalkException("Value of " + option + " is not an integer: " + value);
+        }
+    }
+
+    /**
+     * Returns path given by option, or {@code null} if option is absent.
+     */
+    public Path optionalPath(final String option) throws PathWalkException {
+        final String value = options.get(option);
+        return value == null ? null : getPath(value, option);
+    }
+
+    private static Path getPath(final String fileName, final String argName) throws PathWalkException {
+        try {
+            return Path.of(fileName);
+        } catch (InvalidPathException e) {
+            throw new PathWalkException(
+                    "Invalid path name of " + argName + " argument: " + e.getMessage());
+        }
+    }
+}
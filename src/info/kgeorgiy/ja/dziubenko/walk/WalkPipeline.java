@@ -0,0 +1,158 @@
+package info.kgeorgiy.ja.dziubenko.walk;
+
+import info.kgeorgiy.ja.dziubenko.walk.exceptions.*;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+
+/**
+ * Staged {@link Walk}: a list reader, hash workers and a batched writer
+ * run concurrently and are joined by a bounded queue.
+ * <p>
+ * The reader thread submits file names to the workers and puts pending hashes to the queue
+ * in input order; it blocks while the queue is full, so memory stays constant
+ * for unbounded input. The writer stage writes hashes in the same order and
+ * flushes the output whenever it catches up with the reader.
+ */
+public class WalkPipeline {
+    private static final int PENDING_PER_THREAD = 64;
+    private static final int BATCH_SIZE = 256;
+    private static final PendingHash END = new PendingHash(null, null);
+
+    private final int threads;
+    private final Function<String, String> hasher;
+    private final WalkStatistics statistics;
+
+    /**
+     * Constructs pipeline.
+     *
+     * @param threads number of hash workers.
+     * @param hasher  thread-safe function, which returns hash of the named file.
+     */
+    public WalkPipeline(final int threads, final Function<String, String> hasher) {
+        this(threads, hasher, null);
+    }
+
+    /**
+     * Constructs pipeline, which reports time of writing to the statistics.
+     *
+     * @param threads    number of hash workers.
+     * @param hasher     thread-safe function, which returns hash of the named file.
+     * @param statistics statistics, or {@code null}.
+     */
+    public WalkPipeline(final int threads, final Function<String, String> hasher, final WalkStatistics statistics) {
+        this.threads = threads;
+        this.hasher = hasher;
+        this.statistics = statistics;
+    }
+
+    /**
+     * Hashes all files listed by the reader and writes {@code hash name} lines in input order.
+     */
+    public void run(final BufferedReader reader, final BufferedWriter writer) throws WalkException {
+        final BlockingQueue<PendingHash> pending = new ArrayBlockingQueue<>(PENDING_PER_THREAD * threads);
+        final ExecutorService hashers = Executors.newFixedThreadPool(threads);
+        final ListReader listReader = new ListReader(reader, pending, hashers);
+        final Thread readerThread = new Thread(listReader, "walk-list-reader");
+        readerThread.setDaemon(true);
+        readerThread.start();
+        try {
+            writeAll(pending, writer);
+            if (listReader.error != null) {
+                throw listReader.error;
+            }
+        } finally {
+            readerThread.interrupt();
+            hashers.shutdownNow();
+        }
+    }
+
+    private void writeAll(
+            final BlockingQueue<PendingHash> pending,
+            final BufferedWriter writer
+    ) throws WalkException {
+        final List<PendingHash> batch = new ArrayList<>(BATCH_SIZE);
+        try {
+            while (true) {
+                if (pending.drainTo(batch, BATCH_SIZE) == 0) {
+                    flush(writer);
+                    batch.add(pending.take());
+                }
+                for (PendingHash pendingHash : batch) {
+                    if (pendingHash == END) {
+                        return;
+                    }
+                    final String hash = pendingHash.hash().get();
+                    final long start = statistics == null ? 0 : System.nanoTime();
+                    Walk.writeFileData(pendingHash.fileName(), hash, writer);
+                    if (statistics != null) {
+                        statistics.written(System.nanoTime() - start);
+                    }
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HashingWalkException("Interrupted while waiting for hashes");
+        } catch (ExecutionException e) {
+            throw new HashingWalkException(e.getCause().getMessage());
+        }
+    }
+
+    private static void flush(final BufferedWriter writer) throws WritingWalkException {
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            throw new WritingWalkException("On writing error: " + e.getMessage());
+        }
+    }
+
+    private class ListReader implements Runnable {
+        private final BufferedReader reader;
+        private final BlockingQueue<PendingHash> pending;
+        private final ExecutorService hashers;
+        private volatile ReadingWalkException error;
+
+        private ListReader(
+                final BufferedReader reader,
+                final BlockingQueue<PendingHash> pending,
+                final ExecutorService hashers
+        ) {
+            this.reader = reader;
+            this.pending = pending;
+            this.hashers = hashers;
+        }
+
+        @Override
+        public void run() {
+            try {
+                try {
+                    String fileName;
+                    while ((fileName = Walk.readFileName(reader)) != null) {
+                        final String name = fileName;
+                        pending.put(new PendingHash(name, hashers.submit(() -> hasher.apply(name))));
+                    }
+                } catch (ReadingWalkException e) {
+                    error = e;
+                }
+                pending.put(END);
+            } catch (InterruptedException | RejectedExecutionException ignored) {
+                // the pipeline is stopped, as writing has failed
+            }
+        }
+    }
+
+    private record PendingHash(String fileName, Future<String> hash) {
+    }
+}
@@ -0,0 +1,251 @@
+package info.kgeorgiy.ja.dziubenko.walk;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Throughput and latency counters of a walk.
+ * <p>
+ * Counters are {@link LongAdder adders}, latencies go to a histogram with eight buckets
+ * per power of two, so percentiles are precise up to 12.5%.
+ * {@link HashCalculator Calculators} report once per file. Instances are thread-safe.
+ */
+public class WalkStatistics implements WalkStatisticsMBean {
+    public static final String OBJECT_NAME = "info.kgeorgiy.ja.dziubenko.walk:type=WalkStatistics";
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+    private static final int TOP_SIZE = 5;
+
+    private final long startNanos = System.nanoTime();
+    private final LongAdder files = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder openNanos = new LongAdder();
+    private final LongAdder readNanos = new LongAdder();
+    private final LongAdder digestNanos = new LongAdder();
+    private final LongAdder writeNanos = new LongAdder();
+    private final AtomicLongArray latencies = new AtomicLongArray(BUCKETS);
+    private final Map<String, LongAdder> errorsByType = new ConcurrentHashMap<>();
+    private final TopFiles largest = new TopFiles();
+    private final TopFiles slowest = new TopFiles();
+    private ObjectName objectName;
+
+    /**
+     * Records a hashed file.
+     *
+     * @param fileName    name of the file.
+     * @param readBytes   number of bytes read, {@code 0} for cached hashes.
+     * @param latency     nanoseconds spent on the file.
+     * @param open        nanoseconds spent on opening the file.
+     * @param read        nanoseconds spent on reading.
+     * @param digest      nanoseconds spent on digesting.
+     */
+    public void fileHashed(
+            final String fileName,
+            final long readBytes,
+            final long latency,
+            final long open,
+            final long read,
+            final long digest
+    ) {
+        files.increment();
+        bytes.add(readBytes);
+        openNanos.add(open);
+        readNanos.add(read);
+        digestNanos.add(digest);
+        latencies.incrementAndGet(bucket(latency));
+        largest.offer(readBytes, fileName);
+        slowest.offer(latency, fileName);
+    }
+
+    public void fileFailed(final String fileName, final long latency, final Exception e) {
+        files.increment();
+        errors.increment();
+        latencies.incrementAndGet(bucket(latency));
+        errorsByType.computeIfAbsent(e.getClass().getName(), ignored -> new LongAdder()).increment();
+        slowest.offer(latency, fileName);
+    }
+
+    public void written(final long nanos) {
+        writeNanos.add(nanos);
+    }
+
+    /**
+     * Registers this instance in the platform MBean server under {@value OBJECT_NAME}.
+     */
+    public void register() throws JMException {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        objectName = new ObjectName(OBJECT_NAME);
+        server.registerMBean(this, objectName);
+    }
+
+    public void unregister() throws JMException {
+        if (objectName != null) {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+            objectName = null;
+        }
+    }
+
+    @Override
+    public long getFiles() {
+        return files.sum();
+    }
+
+    @Override
+    public long getBytes() {
+        return bytes.sum();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public double getFilesPerSecond() {
+        return perSecond(getFiles());
+    }
+
+    @Override
+    public double getBytesPerSecond() {
+        return perSecond(getBytes());
+    }
+
+    private double perSecond(final long value) {
+        final long elapsed = System.nanoTime() - startNanos;
+        return elapsed == 0 ? 0 : value * 1e9 / elapsed;
+    }
+
+    @Override
+    public long[] getLatencyPercentilesMicros() {
+        final long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = latencies.get(i);
+            total += counts[i];
+        }
+        final double[] quantiles = {0.5, 0.9, 0.99, 1};
+        final long[] result = new long[quantiles.length];
+        long seen = 0;
+        for (int i = 0, q = 0; i < BUCKETS && q < quantiles.length; i++) {
+            seen += counts[i];
+            while (q < quantiles.length && total > 0 && seen >= Math.ceil(quantiles[q] * total)) {
+                result[q++] = TimeUnit.NANOSECONDS.toMicros(upperBound(i));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public long[] getPhaseMillis() {
+        return Arrays.stream(new LongAdder[]{openNanos, readNanos, digestNanos, writeNanos})
+                .mapToLong(adder -> TimeUnit.NANOSECONDS.toMillis(adder.sum()))
+                .toArray();
+    }
+
+    @Override
+    public String[] getErrorsByType() {
+        return errorsByType.entrySet().stream()
+                .map(entry -> entry.getValue().sum() + " " + entry.getKey())
+                .toArray(String[]::new);
+    }
+
+    @Override
+    public String[] getLargestFiles() {
+        return largest.lines(Function.identity());
+    }
+
+    @Override
+    public String[] getSlowestFiles() {
+        return slowest.lines(TimeUnit.NANOSECONDS::toMicros);
+    }
+
+    /**
+     * Returns multi-line summary of all counters.
+     */
+    public String summary() {
+        final long[] percentiles = getLatencyPercentilesMicros();
+        final long[] phases = getPhaseMillis();
+        return String.format(
+                "Files: %d (%.1f/s), errors: %d%n"
+                        + "Bytes: %d (%.1f MiB/s)%n"
+                        + "Latency, us: p50=%d p90=%d p99=%d max=%d%n"
+                        + "Time, ms: open=%d read=%d digest=%d write=%d%n"
+                        + "Errors by type: %s%n"
+                        + "Largest files: %s%n"
+                        + "Slowest files, us: %s",
+                getFiles(), getFilesPerSecond(), getErrors(),
+                getBytes(), getBytesPerSecond() / (1 << 20),
+                percentiles[0], percentiles[1], percentiles[2], percentiles[3],
+                phases[0], phases[1], phases[2], phases[3],
+                Arrays.toString(getErrorsByType()),
+                Arrays.toString(getLargestFiles()),
+                Arrays.toString(getSlowestFiles())
+        );
+    }
+
+    private static int bucket(final long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) Math.max(0, value);
+        }
+        final int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        final int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long upperBound(final int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        final int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        final long subBucket = bucket % SUB_BUCKETS;
+        return ((SUB_BUCKETS + subBucket + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+
+    /*
+     * Keeps TOP_SIZE files with the largest values. Values not above the current minimum
+     * of a full top are rejected without locking.
+     */
+    private static class TopFiles {
+        private final PriorityQueue<Map.Entry<Long, String>> top = new PriorityQueue<>(Map.Entry.comparingByKey());
+        private volatile long threshold = Long.MIN_VALUE;
+
+        void offer(final long value, final String fileName) {
+            if (value <= threshold) {
+                return;
+            }
+            synchronized (this) {
+                top.add(Map.entry(value, fileName));
+                if (top.size() > TOP_SIZE) {
+                    top.poll();
+                }
+                if (top.size() == TOP_SIZE) {
+                    threshold = top.peek().getKey();
+                }
+            }
+        }
+
+        synchronized String[] lines(final Function<Long, Long> unit) {
+            final List<Map.Entry<Long, String>> entries = new ArrayList<>(top);
+            entries.sort(Map.Entry.<Long, String>comparingByKey(Comparator.reverseOrder()));
+            return entries.stream()
+                    .map(entry -> unit.apply(entry.getKey()) + " " + entry.getValue())
+                    .toArray(String[]::new);
+        }
+    }
+}
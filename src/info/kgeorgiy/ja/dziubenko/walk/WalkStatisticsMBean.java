@@ -0,0 +1,34 @@
+package info.kgeorgiy.ja.dziubenko.walk;
+
+/**
+ * Management interface of {@link WalkStatistics}.
+ */
+public interface WalkStatisticsMBean {
+    /** Number of hashed files, including failed ones. */
+    long getFiles();
+
+    /** Number of bytes read from files. */
+    long getBytes();
+
+    /** Number of files, which could not be hashed. */
+    long getErrors();
+
+    double getFilesPerSecond();
+
+    double getBytesPerSecond();
+
+    /** Approximate percentiles of per-file latency: p50, p90, p99 and max in microseconds. */
+    long[] getLatencyPercentilesMicros();
+
+    /** Total time of opening files, reading, digesting and writing output in milliseconds. */
+    long[] getPhaseMillis();
+
+    /** {@code count ExceptionClass} lines. */
+    String[] getErrorsByType();
+
+    /** {@code size name} lines of the largest files. */
+    String[] getLargestFiles();
+
+    /** {@code micros name} lines of the slowest files. */
+    String[] getSlowestFiles();
+}
@@ -0,0 +1,7 @@
+package info.kgeorgiy.ja.dziubenko.walk.exceptions;
+
+public class AlgorithmWalkException extends WalkException {
+    public AlgorithmWalkException(String message) {
+        super("Hash algorithm error: " + message);
+    }
+}
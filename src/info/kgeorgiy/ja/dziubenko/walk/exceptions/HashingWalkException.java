@@ -0,0 +1,7 @@
+package info.kgeorgiy.ja.dziubenko.walk.exceptions;
+
+public class HashingWalkException extends WalkException {
+    public HashingWalkException(String message) {
+        super("Hashing error: " + message);
+    }
+}